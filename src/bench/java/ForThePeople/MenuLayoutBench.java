@@ -0,0 +1,83 @@
+//BR// Times FTPMenuDisplayer.resolveMenuLayout on synthetic pieces with large menus
+package ForThePeople;
+
+import VASSAL.counters.KeyCommand;
+import VASSAL.counters.KeyCommandSubMenu;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.KeyStroke;
+
+/**
+ * Not part of the build. Resolves the menus of synthetic pieces carrying
+ * 100 to 1600 key commands and prints the time per menu and per command.
+ * If menu construction is linear, the time per command stays about the
+ * same as the menus grow.
+ *
+ * Each synthetic menu has one submenu for every 20 commands, each listing
+ * 10 command names. Every other command has a keystroke of its own, except
+ * that one in ten repeats the keystroke of the command before it and so is
+ * left out of the menu.
+ *
+ * It is compiled with the test sources (see the pom), so after
+ * "mvn test-compile" run it with the VASSAL jar on the class path:
+ *
+ *   java -cp target/test-classes:target/classes:vassal-app.jar ForThePeople.MenuLayoutBench
+ */
+public class MenuLayoutBench {
+  private static final int[] SIZES = { 100, 200, 400, 800, 1600 };
+  private static final int WARMUP = 2000;
+  private static final int MIN_COMMANDS = 2000000;  // Commands to resolve per timed size
+
+  public static void main(String[] args) {
+    for (int size : SIZES) {
+      final KeyCommand[] c = createCommands(size);
+      for (int i = 0; i < WARMUP; i++) {
+        FTPMenuDisplayer.resolveMenuLayout(c);
+      }
+
+      final int reps = Math.max(1, MIN_COMMANDS / size);
+      int topItems = 0;
+      final long start = System.nanoTime();
+      for (int i = 0; i < reps; i++) {
+        topItems += FTPMenuDisplayer.resolveMenuLayout(c).top.size();
+      }
+      final long elapsed = System.nanoTime() - start;
+
+      System.out.printf("%5d commands: %9.1f us/menu %7.1f ns/command (%d top level items)%n",
+        size, elapsed / 1000.0 / reps, (double) elapsed / reps / size, topItems / reps);
+    }
+  }
+
+  /**
+   * @return n key commands for a synthetic piece, submenus first
+   */
+  protected static KeyCommand[] createCommands(int n) {
+    final List<KeyCommand> commands = new ArrayList<>(n);
+    final int subMenus = n / 20;
+    for (int s = 0; s < subMenus; s++) {
+      final KeyCommandSubMenu subMenu = new KeyCommandSubMenu("Menu " + s, null, null);
+      for (int i = 0; i < 10; i++) {
+        subMenu.addCommand(getName(subMenus + s * 10 + i));
+      }
+      commands.add(subMenu);
+    }
+    for (int i = subMenus; i < n; i++) {
+      // Every tenth command reuses the keystroke of the one before it
+      final int stroke = i % 10 == 0 && i > subMenus ? i - 1 : i;
+      commands.add(new KeyCommand(getName(i), getKeyStroke(stroke), null));
+    }
+    return commands.toArray(new KeyCommand[0]);
+  }
+
+  private static String getName(int i) {
+    return "Command " + i;
+  }
+
+  /**
+   * @return a keystroke that is different for every i
+   */
+  private static KeyStroke getKeyStroke(int i) {
+    return KeyStroke.getKeyStroke((char) (0x100 + i));
+  }
+}
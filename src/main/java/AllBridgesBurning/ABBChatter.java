@@ -21,11 +21,13 @@ import VASSAL.build.Buildable;
 import VASSAL.build.GameModule;
 import VASSAL.command.CommandEncoder;
 import VASSAL.configure.ColorConfigurer;
+import VASSAL.configure.Configurer;
 import VASSAL.i18n.Resources;
 import VASSAL.preferences.Prefs;
 
 import java.awt.Color;
 import java.awt.Font;
+import java.util.Objects;
 
 /**
  * A tight mini-mod of the VASSAL 3.4 Chatter, to assign chat colors based on which side players are playing (rather than
@@ -33,6 +35,9 @@ import java.awt.Font;
  * info with the chat commands when sending from machine to machine, but as we presently don't this will have to do!
  */
 public class ABBChatter extends VASSAL.build.module.Chatter implements CommandEncoder, Buildable {
+  //BR// Our own chat prefix, and the side it was made for
+  private String chatPrefix;
+  private Object chatPrefixSide;
 
   protected static final String AP_CHAT_COLOR = "PoGAPChatColor";
   protected static final String CP_CHAT_COLOR = "PoGCPChatColor";
@@ -46,10 +51,13 @@ public class ABBChatter extends VASSAL.build.module.Chatter implements CommandEn
   protected String getChatStyle(String s) {
     String style;
 
-    if (s.startsWith(formatChat("").trim())) { //$NON-NLS-1$
-      if (GameModule.getGameModule().getProperty(VASSAL.build.module.GlobalOptions.PLAYER_SIDE).equals("Central Powers")) {
+    //BR// Look the side up once per message
+    final Object side = GameModule.getGameModule().getProperty(VASSAL.build.module.GlobalOptions.PLAYER_SIDE);
+
+    if (s.startsWith(getChatPrefix(side))) { //$NON-NLS-1$
+      if ("Central Powers".equals(side)) {
         style = "cpchat";
-      } else if (GameModule.getGameModule().getProperty(VASSAL.build.module.GlobalOptions.PLAYER_SIDE).equals("Solitaire")) {
+      } else if ("Solitaire".equals(side)) {
         style = "ref";
       } else {
         style = "apchat";
@@ -63,9 +71,9 @@ public class ABBChatter extends VASSAL.build.module.Chatter implements CommandEn
         style = "ref";
       }
     } else {
-      if (GameModule.getGameModule().getProperty(VASSAL.build.module.GlobalOptions.PLAYER_SIDE).equals("Central Powers")) {
+      if ("Central Powers".equals(side)) {
         style = "apchat";
-      } else if (GameModule.getGameModule().getProperty(VASSAL.build.module.GlobalOptions.PLAYER_SIDE).equals("Solitaire") || GameModule.getGameModule().getProperty(VASSAL.build.module.GlobalOptions.PLAYER_SIDE).equals("<observer>")) {
+      } else if ("Solitaire".equals(side) || "<observer>".equals(side)) {
         style = "ref";
       } else {
         style = "cpchat";
@@ -75,6 +83,18 @@ public class ABBChatter extends VASSAL.build.module.Chatter implements CommandEn
     return style;
   }
 
+  /**
+   * @return formatChat("").trim(), the start of our own chat messages. It is
+   * only worked out again when our side or name changes.
+   */
+  protected String getChatPrefix(Object side) {
+    if (chatPrefix == null || !Objects.equals(side, chatPrefixSide)) {
+      chatPrefix = formatChat("").trim();
+      chatPrefixSide = side;
+    }
+    return chatPrefix;
+  }
+
   /**
    * Adds our two player color styles to the HTML stylesheet
    */
@@ -97,6 +117,12 @@ public class ABBChatter extends VASSAL.build.module.Chatter implements CommandEn
   public void addTo(Buildable b) {
     super.addTo(b); // Let VASSAL's chatter do its normal thing
 
+    //BR// Our chat prefix includes our name
+    final Configurer realName = GameModule.getGameModule().getPrefs().getOption(GameModule.REAL_NAME);
+    if (realName != null) {
+      realName.addPropertyChangeListener(e -> chatPrefix = null);
+    }
+
     GameModule mod = (GameModule) b;
     final Prefs globalPrefs = Prefs.getGlobalPrefs();
 
@@ -5,10 +5,16 @@ package ForThePeople;
 import ForThePeople.Deselect;
 import ForThePeople.FTPFootprint;
 import VASSAL.build.module.BasicCommandEncoder;
+import VASSAL.command.Command;
+import VASSAL.command.MovePiece;
 import VASSAL.counters.GamePiece;
 import VASSAL.counters.Decorator;
+import VASSAL.tools.SequenceEncoder;
+
+import java.awt.Point;
 
 public class FTPCommandEncoder extends BasicCommandEncoder {
+  public static final String GROUP_MOVE = "FTPGM"; //BR// Prefix for FTPGroupMove
 
   public Decorator createDecorator(String type, GamePiece inner) {
     if (type.startsWith(Deselect.ID)) {
@@ -19,4 +25,72 @@ public class FTPCommandEncoder extends BasicCommandEncoder {
     }
     return super.createDecorator(type, inner);
   }  
-} 
\ No newline at end of file
+
+  @Override
+  public Command decode(String command) {
+    if (command.startsWith(GROUP_MOVE + '\t')) {
+      return decodeGroupMove(command);
+    }
+    return super.decode(command);
+  }
+
+  @Override
+  public String encode(Command c) {
+    if (c instanceof FTPGroupMove) {
+      return encodeGroupMove((FTPGroupMove) c);
+    }
+    return super.encode(c);
+  }
+
+  //BR// Destination, then one token for each piece in the order they are moved:
+  //BR// id, new underneath id, old map id, old x, old y, old underneath id
+  protected String encodeGroupMove(FTPGroupMove group) {
+    final Point pos = group.getPosition();
+    final SequenceEncoder se = new SequenceEncoder('\t');
+    se.append(GROUP_MOVE)
+      .append(writeId(group.getMapId()))
+      .append(pos.x)
+      .append(pos.y)
+      .append(writeId(group.getPlayerId()));
+    for (MovePiece move : group.getMoves()) {
+      final Point old = move.getOldPosition();
+      final SequenceEncoder me = new SequenceEncoder(',');
+      me.append(move.getId())
+        .append(writeId(move.getNewUnderneathId()))
+        .append(writeId(move.getOldMapId()))
+        .append(old == null ? 0 : old.x)
+        .append(old == null ? 0 : old.y)
+        .append(writeId(move.getOldUnderneathId()));
+      se.append(me.getValue());
+    }
+    return se.getValue();
+  }
+
+  protected Command decodeGroupMove(String command) {
+    final SequenceEncoder.Decoder sd = new SequenceEncoder.Decoder(command, '\t');
+    sd.nextToken(); // GROUP_MOVE
+    final String mapId = readId(sd.nextToken(null));
+    final int x = sd.nextInt(0);
+    final int y = sd.nextInt(0);
+    final FTPGroupMove group = new FTPGroupMove(mapId, new Point(x, y), readId(sd.nextToken(null)));
+    while (sd.hasMoreTokens()) {
+      final SequenceEncoder.Decoder md = new SequenceEncoder.Decoder(sd.nextToken(), ',');
+      final String id = md.nextToken();
+      final String newUnderneathId = readId(md.nextToken(null));
+      final String oldMapId = readId(md.nextToken(null));
+      final int oldX = md.nextInt(0);
+      final int oldY = md.nextInt(0);
+      group.add(id, newUnderneathId, oldMapId, new Point(oldX, oldY), readId(md.nextToken(null)));
+    }
+    return group;
+  }
+
+  //BR// Same convention as MovePiece's encoding: a missing id is written as "null"
+  private static String writeId(String id) {
+    return id == null ? "null" : id;
+  }
+
+  private static String readId(String token) {
+    return "null".equals(token) ? null : token;
+  }
+}
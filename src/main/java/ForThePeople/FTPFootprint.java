@@ -23,6 +23,7 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Composite;
+import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
@@ -32,12 +33,17 @@ import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.Stroke;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.swing.Box;
 import javax.swing.BoxLayout;
@@ -78,23 +84,10 @@ public class FTPFootprint extends VASSAL.counters.Footprint {
   protected boolean globalVisibility = false;  // Shared trail visibility (if globallyVisible == true)
   protected String startMapId = "";            // Map Id trail started on
                                                // List of points
-  protected List<Point> pointList = new ArrayList<Point>();
-
-  // Type Variables (Configured in Ed)
-  protected NamedKeyStroke trailKey;                // Control Key to invoke
-  protected NamedKeyStroke trailKeyOn;              //BR//
-  protected NamedKeyStroke trailKeyOff;
-  protected NamedKeyStroke trailKeyClear;
-  protected String menuCommand;                // Menu Command
-  protected boolean initiallyVisible = false;  // Are Trails initially visible?
-  protected boolean globallyVisible = false;   // Are Trails shared between players?
-  protected int circleRadius;                  // Radius of trail point circle
-  protected int selectedTransparency;          // Transparency of trail when unit is selected
-  protected int unSelectedTransparency;        // Transparency of trail when unit is selected/unselected
-  protected Color lineColor;                   // Color of Trail lines
-  protected Color fillColor;                   // Color of Trail circle fill
-  protected int edgePointBuffer;               // How far Off-map to draw trail points (pixels)?
-  protected int edgeDisplayBuffer;             // How far Off-map to draw trail lines (pixels)?
+  protected FTPTrailPoints pointList = new FTPTrailPoints();
+
+  // Type Variables (Configured in Ed), shared by all pieces of the same type
+  protected TrailType trailType;
 
   // Defaults for Type variables
   protected static final char DEFAULT_TRAIL_KEY = 'T';
@@ -112,15 +105,54 @@ public class FTPFootprint extends VASSAL.counters.Footprint {
   protected static final int DEFAULT_EDGE_POINT_BUFFER = 20;
   protected static final int DEFAULT_EDGE_DISPLAY_BUFFER = 30;
   protected static final float LINE_WIDTH = 1.0f;
+  protected static final int DEFAULT_MAX_TRAIL_POINTS = 0;       // No limit
+  protected static final int DEFAULT_SIMPLIFY_TOLERANCE = 0;     // Keep every point
+
+  // Marks a state whose trail is in the compact FTPTrailPoints encoding,
+  // rather than a point count followed by one "x,y" token per point
+  protected static final String COMPACT_STATE = "v2";
+
+  // Number of consecutive trail segments grouped under one bounding box
+  // when deciding what lies inside the area being painted
+  protected static final int SEGMENTS_PER_CHUNK = 16;
+
+  // Label fonts and scaled trail icons, shared by every trail and limited
+  // to the most recently used entries
+  protected static final int RESOURCE_CACHE_SIZE = 32;
+  private static final java.util.Map<Integer, Font> FONT_CACHE =
+    new LinkedHashMap<Integer, Font>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(java.util.Map.Entry<Integer, Font> eldest) {
+        return size() > RESOURCE_CACHE_SIZE;
+      }
+    };
+  private static final java.util.Map<ScaledImageKey, Image> SCALED_IMAGE_CACHE =
+    new LinkedHashMap<ScaledImageKey, Image>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(java.util.Map.Entry<ScaledImageKey, Image> eldest) {
+        return size() > RESOURCE_CACHE_SIZE;
+      }
+    };
+
+  // While a group of pieces is being moved, trail repaints are collected here
+  // (one region per map) and issued together when the move is complete
+  private static int trailBatchDepth;
+  private static final java.util.Map<Map, Rectangle> TRAIL_BATCH = new HashMap<>();
 
   // Local Variables
-  protected Rectangle myBoundingBox;
-  protected Font font;
-  protected double lastZoom;
+  protected Rectangle myBoundingBox;           // Relative to the piece position
+  protected Rectangle trailBounds;             // Map coordinates of all trail circles
+  private int boundingBoxX;                    // Piece position myBoundingBox was built at
+  private int boundingBoxY;
   protected boolean localVisibility = false;
   protected boolean initialized = false;
+  protected int trailVersion;                  // Bumped whenever pointList changes
+  protected TrailCache trailCache;
 
-  protected double lineWidth;
   private KeyCommand showTrailCommand;
   private KeyCommand showTrailCommandOn;      //BR//
   private KeyCommand showTrailCommandOff;
@@ -138,37 +170,54 @@ public class FTPFootprint extends VASSAL.counters.Footprint {
   /** @deprecated Use {@link #pointList} directly. */
   @Deprecated
   protected Enumeration<Point> getPointList() {
-    return Collections.enumeration(pointList);
+    final List<Point> points = new ArrayList<>(pointList.size());
+    for (int i = 0; i < pointList.size(); i++) {
+      points.add(pointList.get(i));
+    }
+    return Collections.enumeration(points);
   }
 
   public void mySetState(String newState) {
     pointList.clear();
+    trailVersion++;
     final SequenceEncoder.Decoder ss =
       new SequenceEncoder.Decoder(newState, ';');
-    globalVisibility = ss.nextBoolean(initiallyVisible);
+    globalVisibility = ss.nextBoolean(trailType.initiallyVisible);
     startMapId = ss.nextToken("");
-    final int items = ss.nextInt(0);
-    for (int i = 0; i < items; i++) {
-      final String point = ss.nextToken("");
-      if (point.length() != 0) {
-        final SequenceEncoder.Decoder sp =
-          new SequenceEncoder.Decoder(point, ',');
-        final int x = sp.nextInt(0);
-        final int y = sp.nextInt(0);
-        pointList.add(new Point(x, y));
+    final String format = ss.nextToken("0");
+    if (COMPACT_STATE.equals(format)) {
+      pointList.decode(ss.nextToken(""));
+    }
+    else {
+      // Saves and logs written before the compact format
+      int items;
+      try {
+        items = Integer.parseInt(format);
+      }
+      catch (NumberFormatException e) {
+        items = 0;
+      }
+      for (int i = 0; i < items; i++) {
+        final String point = ss.nextToken("");
+        if (point.length() != 0) {
+          final SequenceEncoder.Decoder sp =
+            new SequenceEncoder.Decoder(point, ',');
+          final int x = sp.nextInt(0);
+          final int y = sp.nextInt(0);
+          pointList.add(x, y);
+        }
       }
     }
+    limitTrailLength();
+    recalculateTrailBounds();
   }
 
   public String myGetState() {
     final SequenceEncoder se = new SequenceEncoder(';');
     se.append(globalVisibility)
       .append(startMapId)
-      .append(pointList.size());
-
-    for (Point p : pointList) {
-      se.append(p.x + "," + p.y);
-    }
+      .append(COMPACT_STATE)
+      .append(pointList.encode());
 
     return se.getValue();
   }
@@ -177,55 +226,27 @@ public class FTPFootprint extends VASSAL.counters.Footprint {
    * Type is the character command that toggles footprint visiblity
    */
   public void mySetType(String type) {
-    final SequenceEncoder.Decoder st = new SequenceEncoder.Decoder(type, ';');
-    st.nextToken();
-
-    trailKey = st.nextNamedKeyStroke(DEFAULT_TRAIL_KEY);
-    trailKeyOn = st.nextNamedKeyStroke(DEFAULT_TRAIL_KEY_ON);   //BR//
-    trailKeyOff = st.nextNamedKeyStroke(DEFAULT_TRAIL_KEY_OFF);
-    trailKeyClear = st.nextNamedKeyStroke(DEFAULT_TRAIL_KEY_CLEAR);
-    menuCommand = st.nextToken(DEFAULT_MENU_COMMAND);
-    initiallyVisible = st.nextBoolean(DEFAULT_INITIALLY_VISIBLE.booleanValue());
-    globallyVisible = st.nextBoolean(DEFAULT_GLOBALLY_VISIBLE.booleanValue());
-    circleRadius = st.nextInt(DEFAULT_CIRCLE_RADIUS);
-    fillColor = st.nextColor(DEFAULT_FILL_COLOR);
-    lineColor = st.nextColor(DEFAULT_LINE_COLOR);
-    selectedTransparency = st.nextInt(DEFAULT_SELECTED_TRANSPARENCY);
-    unSelectedTransparency = st.nextInt(DEFULT_UNSELECTED_TRANSPARENCY);
-    edgePointBuffer = st.nextInt(DEFAULT_EDGE_POINT_BUFFER);
-    edgeDisplayBuffer = st.nextInt(DEFAULT_EDGE_DISPLAY_BUFFER);
-    lineWidth = st.nextDouble(LINE_WIDTH);
+    trailType = TrailType.get(type);
 
     commands = null;
     showTrailCommand = null;
     showTrailCommandOn = null;
     showTrailCommandOff = null;
     showTrailCommandClear = null;
+    trailCache = null;
+    // pointList is still null when called from the superclass constructor
+    if (pointList != null) {
+      recalculateTrailBounds();
+    }
 
-    if (initiallyVisible) {
+    if (trailType.initiallyVisible) {
       localVisibility = true;
       globalVisibility = true;
     }
   }
 
   public String myGetType() {
-    SequenceEncoder se = new SequenceEncoder(';');
-    se.append(trailKey)
-      .append(trailKeyOn)
-      .append(trailKeyOff)      
-      .append(trailKeyClear)
-      .append(menuCommand)
-      .append(initiallyVisible)
-      .append(globallyVisible)
-      .append(circleRadius)
-      .append(fillColor)
-      .append(lineColor)
-      .append(selectedTransparency)
-      .append(unSelectedTransparency)
-      .append(edgePointBuffer)
-      .append(edgeDisplayBuffer)
-      .append(lineWidth);
-    return ID + se.getValue();
+    return trailType.type;
   }
 
   public void setProperty(Object key, Object val) {
@@ -261,6 +282,7 @@ public class FTPFootprint extends VASSAL.counters.Footprint {
   /**
    * setMoved is called with an argument of true each time the piece is moved.
    * The argument is false when the unit is marked as not moved.
+   * Both paths repaint only the part of the trail they change.
    */
   public void setMoved(boolean justMoved) {
     if (justMoved) {
@@ -271,13 +293,11 @@ public class FTPFootprint extends VASSAL.counters.Footprint {
     else {
       clearTrail();
     }
-    redraw();
   }
 
   protected void recordCurrentPosition() {
     final Point here = this.getPosition();
-    if (pointList.isEmpty() ||
-        !pointList.get(pointList.size()-1).equals(here)) {
+    if (!pointList.isLast(here.x, here.y)) {
       addPoint(here);
     }
     else {
@@ -286,13 +306,17 @@ public class FTPFootprint extends VASSAL.counters.Footprint {
   }
 
   protected void clearTrail() {
+    final Rectangle oldBounds = trailBounds;
     pointList.clear();
+    trailVersion++;
+    recalculateTrailBounds();
     addPoint(getPosition());
     if (!initialized) {
-      localVisibility = initiallyVisible;
-      globalVisibility = initiallyVisible;
+      localVisibility = trailType.initiallyVisible;
+      globalVisibility = trailType.initiallyVisible;
       initialized = true;
     }
+    repaintTrailArea(oldBounds);
   }
 
   public HelpFile getHelpFile() {
@@ -304,51 +328,166 @@ public class FTPFootprint extends VASSAL.counters.Footprint {
    * trail.
    */
   protected void addPoint(Point p) {
-    pointList.add(p);
-    myBoundingBox = null;
-  }
+    // The only new drawing is the track from the previous point and the new circle
+    final Rectangle dirty = getCircleBounds(p.x, p.y);
+    if (!pointList.isEmpty()) {
+      final int last = pointList.size() - 1;
+      dirty.add(getCircleBounds(pointList.getX(last), pointList.getY(last)));
+    }
 
-  private Rectangle getBB() {
-    final Rectangle bb = piece.boundingBox();
-    final Point pos = piece.getPosition();
+    pointList.add(p.x, p.y);
+    trailVersion++;
+    if (pruneTrail()) {
+      // Points went from elsewhere in the trail, so its old extent needs repainting
+      if (trailBounds != null) {
+        dirty.add(trailBounds);
+      }
+      recalculateTrailBounds();
+    }
+    else {
+      addTrailBounds(p.x, p.y);
+      myBoundingBox = null;
+    }
 
-    bb.x += pos.x;
-    bb.y += pos.y;
+    repaintTrailArea(dirty);
+  }
 
-    final int circleDiameter = 2*circleRadius;
-    final Rectangle pr = new Rectangle();
+  /**
+   * Apply the configured simplification and length limit after a point has
+   * been added. This happens as points are recorded, so the trail sent in
+   * the state is already pruned and every client sees the same one.
+   *
+   * @return true if any points were removed
+   */
+  protected boolean pruneTrail() {
+    final int before = pointList.size();
+    if (trailType.simplifyTolerance > 0) {
+      pointList.simplifyLast(trailType.simplifyTolerance);
+    }
+    limitTrailLength();
+    return pointList.size() != before;
+  }
 
-    for (final Point p: pointList) {
-      pr.setBounds(
-        p.x - circleRadius, p.y - circleRadius, circleDiameter, circleDiameter
-      );
-      bb.add(pr);
+  /**
+   * Keep only the newest maxTrailPoints points, if there is a limit
+   */
+  protected void limitTrailLength() {
+    final int max = trailType.maxTrailPoints;
+    if (max > 0 && pointList.size() > max) {
+      pointList.removeFirst(pointList.size() - max);
     }
+  }
 
-    bb.x -= pos.x;
-    bb.y -= pos.y;
+  /**
+   * @return the map area covered by a trail circle centred on (x, y)
+   */
+  protected Rectangle getCircleBounds(int x, int y) {
+    final int circleDiameter = 2*trailType.circleRadius;
+    return new Rectangle(
+      x - trailType.circleRadius, y - trailType.circleRadius, circleDiameter, circleDiameter);
+  }
+
+  /**
+   * Grow the trail bounds to take in the circle drawn at (x, y)
+   */
+  protected void addTrailBounds(int x, int y) {
+    if (trailBounds == null) {
+      trailBounds = getCircleBounds(x, y);
+    }
+    else {
+      trailBounds.add(getCircleBounds(x, y));
+    }
+  }
 
-    return bb;
+  /**
+   * Rebuild the trail bounds from scratch. Only needed when points are
+   * removed or replaced, since appending a point grows the bounds in place.
+   */
+  protected void recalculateTrailBounds() {
+    trailBounds = null;
+    for (int i = 0; i < pointList.size(); i++) {
+      addTrailBounds(pointList.getX(i), pointList.getY(i));
+    }
+    myBoundingBox = null;
   }
 
+  /**
+   * Repaint the piece and its whole trail, e.g. when its visibility changes
+   */
   public void redraw() {
     final Map m = getMap();
     if (m != null) {
-      m.repaint(getMyBoundingBox());
+      // Map.repaint() wants map coordinates and adjusts the Rectangle it is given
+      final Rectangle r = new Rectangle(getMyBoundingBox());
+      final Point pos = getPosition();
+      r.translate(pos.x, pos.y);
+      repaintMap(m, r);
+    }
+  }
+
+  /**
+   * Repaint part of the trail, given in map coordinates. Swing merges the
+   * requests for a map into one region, so the area is kept as small as
+   * possible rather than being split further.
+   */
+  protected void repaintTrailArea(Rectangle area) {
+    final Map m = getMap();
+    if (m != null && area != null) {
+      final Rectangle r = new Rectangle(area);
+      final int margin = (int) Math.ceil(trailType.lineWidth) + 1;
+      r.grow(margin, margin);
+      repaintMap(m, r);
+    }
+  }
+
+  private static void repaintMap(Map m, Rectangle r) {
+    if (trailBatchDepth > 0) {
+      final Rectangle pending = TRAIL_BATCH.get(m);
+      if (pending == null) {
+        TRAIL_BATCH.put(m, r);
+      }
+      else {
+        pending.add(r);
+      }
+    }
+    else {
+      m.repaint(r);
     }
   }
 
+  /**
+   * Start holding back trail repaints, e.g. while a stack of pieces is
+   * dropped. Every call must be matched by {@link #endTrailBatch()}.
+   */
+  public static void beginTrailBatch() {
+    trailBatchDepth++;
+  }
+
+  /**
+   * Finish a batch started by {@link #beginTrailBatch()}, repainting the
+   * combined area of all trail changes made during it once per map.
+   */
+  public static void endTrailBatch() {
+    if (trailBatchDepth == 0 || --trailBatchDepth > 0) {
+      return;
+    }
+    for (java.util.Map.Entry<Map, Rectangle> e : TRAIL_BATCH.entrySet()) {
+      e.getKey().repaint(e.getValue());
+    }
+    TRAIL_BATCH.clear();
+  }
+
   public String getDescription() {
     return "FTP Movement trail";   //BR//
   }
 
-// FIXME: This method is inefficient.
   public void draw(Graphics g, int x, int y, Component obs, double zoom) {
     piece.draw(g, x, y, obs, zoom);
 
     // Do nothing when piece is not on a map, we are drawing the map
     // to something other than its normal view, or the trail is invisible,
-    if (getMap() == null || getMap().getView() != obs || !isTrailVisible()) {
+    final Map map = getMap();
+    if (map == null || map.getView() != obs || !isTrailVisible()) {
       return;
     }
 
@@ -356,7 +495,7 @@ public class FTPFootprint extends VASSAL.counters.Footprint {
      * If we have changed Maps, then start a new trail. Note that this check is
      * here because setMoved is called before the piece has been moved.
      */
-    final String currentMap = getMap().getId();
+    final String currentMap = map.getId();
     if (!currentMap.equals(startMapId)) {
       startMapId = currentMap;
       clearTrail();
@@ -373,185 +512,428 @@ public class FTPFootprint extends VASSAL.counters.Footprint {
      * setting, then don't draw the trail as it will be in the wrong place.
      * (i.e. Mouse-over viewer)
      */
-    double mapZoom = zoom;
-    if (this.getMap() != null) {
-      mapZoom = getMap().getZoom();
-      if (zoom != mapZoom) {
-        return;
-      }
+    if (zoom != map.getZoom()) {
+      return;
     }
 
     final Graphics2D g2d = (Graphics2D) g;
     final boolean selected = Boolean.TRUE.equals(
       Decorator.getOutermost(this).getProperty(Properties.SELECTED));
+    final Point here = getPosition();
+
+    // Geometry is only rebuilt when the zoom, the trail, the piece position
+    // or the selection state has changed since the last paint.
+    if (trailCache == null ||
+        !trailCache.matches(map, zoom, trailVersion, here, selected)) {
+      trailCache = buildTrailCache(map, zoom, here, selected);
+    }
+    final TrailCache cache = trailCache;
+
     final int transparencyPercent = Math.max(0, Math.min(100,
-      selected ? selectedTransparency : unSelectedTransparency));
+      selected ? trailType.selectedTransparency : trailType.unSelectedTransparency));
     final float transparency = transparencyPercent / 100.0f;
     final Composite oldComposite = g2d.getComposite();
     final Stroke oldStroke = g2d.getStroke();
     final Color oldColor = g2d.getColor();
-
-    /*
-     * newClip is an overall clipping region made up of the Map itself and a
-     * border of edgeDisplayBuffer pixels. No drawing at all outside this area.
-     * mapRect is made of the Map and a edgePointBuffer pixel border. Trail
-     * points are not drawn outside this area.
-     */
-    final int mapHeight = getMap().mapSize().height;
-    final int mapWidth = getMap().mapSize().width;
-    final int edgeHeight =
-      Integer.parseInt(getMap().getAttributeValueString(Map.EDGE_HEIGHT));
-    final int edgeWidth =
-      Integer.parseInt(getMap().getAttributeValueString(Map.EDGE_WIDTH));
-
-    final int edgeClipHeight = Math.min(edgeHeight, edgeDisplayBuffer);
-    final int edgeClipWidth = Math.min(edgeWidth, edgeDisplayBuffer);
-
-    final int clipX = edgeWidth - edgeClipWidth;
-    final int clipY = edgeHeight - edgeClipHeight;
-    final int width = mapWidth - 2*(edgeWidth + edgeClipWidth);
-    final int height = mapHeight - 2*(edgeHeight + edgeClipHeight);
-
-    final Rectangle newClip = new Rectangle(
-      (int) (clipX * zoom),
-      (int) (clipY * zoom),
-      (int) (width * zoom),
-      (int) (height * zoom)
-    );
-    final Rectangle circleRect = new Rectangle(
-      edgeWidth - edgePointBuffer,
-      edgeHeight - edgePointBuffer,
-      mapWidth + 2 * edgePointBuffer,
-      mapHeight + 2 * edgePointBuffer
-    );
-    final Rectangle visibleRect = getMap().getView().getVisibleRect();
-
+    final Object oldAntialias =
+      g2d.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
     final Shape oldClip = g2d.getClip();
-    g2d.setClip(newClip.intersection(visibleRect));
-    if (oldClip != null) {
-      g2d.setClip(oldClip.getBounds().intersection(g.getClipBounds()));
-    }
+
+    // No drawing at all outside the Map and its edgeDisplayBuffer border
+    g2d.clip(cache.edgeClip);
 
     g2d.setComposite(
       AlphaComposite.getInstance(AlphaComposite.SRC_OVER, transparency));
     g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
                          RenderingHints.VALUE_ANTIALIAS_ON);
 
-    final float thickness = Math.max(1.0f, (float)(zoom*lineWidth));
-    g2d.setStroke(new BasicStroke(thickness));
-    g2d.setColor(lineColor);
-
-    final Point here = getPosition();
+    // Only the parts of the trail inside the area being painted are drawn
+    final Rectangle clip = g.getClipBounds();
 
     /*
      * Draw the tracks between trail points
      */
-    int x1, y1, x2, y2;
-    final Iterator<Point> i = pointList.iterator();
-    Point cur = i.next(), next;
-    while (i.hasNext()) {
-      next = i.next();
+    g2d.setStroke(cache.stroke);
+    g2d.setColor(trailType.lineColor);
+    for (final TrailChunk chunk : cache.chunks) {
+      if (chunk.isVisible(clip)) {
+        g2d.draw(chunk.tracks);
+      }
+    }
+
+    /*
+     * And draw the points themselves.
+     */
+    for (final TrailChunk chunk : cache.chunks) {
+      if (!chunk.isVisible(clip)) {
+        continue;
+      }
+      for (int i = chunk.firstCircle; i < chunk.lastCircle; i++) {
+        drawTrailPoint(g2d, cache, i, selected, zoom, obs);
+      }
+    }
 
-      x1 = (int)(cur.x * zoom);
-      y1 = (int)(cur.y * zoom);
-      x2 = (int)(next.x * zoom);
-      y2 = (int)(next.y * zoom);
+    g2d.setComposite(oldComposite);
+    g2d.setStroke(oldStroke);
+    g2d.setColor(oldColor);
+    if (oldAntialias != null) {
+      g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, oldAntialias);
+    }
+    g2d.setClip(oldClip);
+  }
 
-      drawTrack(g, x1, y1, x2, y2, zoom);
+  /**
+   * Draw trail circle i of the cache, and when the piece is selected any
+   * icon or text that goes inside it.
+   */
+  private void drawTrailPoint(Graphics2D g, TrailCache cache, int i,
+                              boolean selected, double zoom, Component obs) {
+    final int elementCount = cache.circleIndex[i];
+    drawPoint(g, cache.circles[i], elementCount);
 
-      cur = next;
+    if (!selected) {
+      return;
     }
 
-    if (!here.equals(cur)) {
-      x1 = (int)(cur.x * zoom);
-      y1 = (int)(cur.y * zoom);
-      x2 = (int)(here.x * zoom);
-      y2 = (int)(here.y * zoom);
+    final int px = pointList.getX(elementCount);
+    final int py = pointList.getY(elementCount);
 
-      drawTrack(g, x1, y1, x2, y2, zoom);
+    // Is there an Icon to draw in the circle?
+    final Image image = getTrailImage(elementCount);
+    if (image != null) {
+      final int x1 = (int)((px - trailType.circleRadius) * zoom);
+      final int y1 = (int)((py - trailType.circleRadius) * zoom);
+      g.drawImage(getScaledTrailImage(image, zoom), x1, y1, obs);
     }
 
-    /*
-     * And draw the points themselves.
-     */
-    int elementCount = -1;
-    for (final Point p : pointList) {
-      ++elementCount;
-
-      if (circleRect.contains(p) && !p.equals(here)) {
-        drawPoint(g, p, zoom, elementCount);
-
-        // Is there an Icon to draw in the circle?
-        Image image = getTrailImage(elementCount);
-        x1 = (int)((p.x - circleRadius) * zoom);
-        y1 = (int)((p.y - circleRadius) * zoom);
-        if (selected && image != null) {
-          if (zoom == 1.0) {
-            g.drawImage(image, x1, y1, obs);
+    // Or some text?
+    final String text = getTrailText(elementCount);
+    if (text != null) {
+      final Font font = getTrailFont(trailType.circleRadius, zoom);
+      Labeler.drawLabel(g, text, (int)(px * zoom), (int)(py * zoom), font,
+                        Labeler.CENTER, Labeler.CENTER, trailType.lineColor, null, null);
+    }
+  }
+
+  /**
+   * @return the font for text in a trail circle of the given radius and zoom
+   */
+  protected static Font getTrailFont(int radius, double zoom) {
+    final int size = (int)(radius * 1.4 * zoom);
+    synchronized (FONT_CACHE) {
+      return FONT_CACHE.computeIfAbsent(
+        size, s -> new Font("Dialog", Font.PLAIN, s));
+    }
+  }
+
+  /**
+   * @return a trail icon scaled to the given zoom
+   */
+  protected static Image getScaledTrailImage(Image image, double zoom) {
+    if (zoom == 1.0) {
+      return image;
+    }
+    synchronized (SCALED_IMAGE_CACHE) {
+      return SCALED_IMAGE_CACHE.computeIfAbsent(new ScaledImageKey(image, zoom),
+        k -> ImageUtils.transform((BufferedImage) image, zoom, 0.0));
+    }
+  }
+
+  /**
+   * Build the zoomed trail geometry for the current trail. Nothing is drawn
+   * outside the Map plus a border of edgeDisplayBuffer pixels. Trail points
+   * are not drawn outside the Map plus a border of edgePointBuffer pixels,
+   * nor at the current position of the piece.
+   *
+   * The trail is split into chunks of {@link #SEGMENTS_PER_CHUNK} consecutive
+   * points, each with its own bounding box, so that a paint only touches the
+   * chunks that intersect its clip.
+   */
+  protected TrailCache buildTrailCache(Map map, double zoom, Point here,
+                                       boolean selected) {
+    final Dimension mapSize = map.mapSize();
+    final int edgeHeight =
+      Integer.parseInt(map.getAttributeValueString(Map.EDGE_HEIGHT));
+    final int edgeWidth =
+      Integer.parseInt(map.getAttributeValueString(Map.EDGE_WIDTH));
+
+    final int clipX = edgeWidth - Math.min(edgeWidth, trailType.edgeDisplayBuffer);
+    final int clipY = edgeHeight - Math.min(edgeHeight, trailType.edgeDisplayBuffer);
+    final Rectangle edgeClip = new Rectangle(
+      (int) (clipX * zoom),
+      (int) (clipY * zoom),
+      (int) ((mapSize.width - 2 * clipX) * zoom),
+      (int) ((mapSize.height - 2 * clipY) * zoom)
+    );
+    final Rectangle circleRect = new Rectangle(
+      edgeWidth - trailType.edgePointBuffer,
+      edgeHeight - trailType.edgePointBuffer,
+      mapSize.width + 2 * trailType.edgePointBuffer,
+      mapSize.height + 2 * trailType.edgePointBuffer
+    );
+
+    final float thickness = Math.max(1.0f, (float)(zoom*trailType.lineWidth));
+    final int margin = (int) Math.ceil(thickness) + 1;
+    final int count = pointList.size();
+    final int diameter = (int)(2 * trailType.circleRadius * zoom);
+    final Shape[] circles = new Shape[count];
+    final int[] circleIndex = new int[count];
+    int circleCount = 0;
+
+    final TrailChunk[] chunks =
+      new TrailChunk[(count + SEGMENTS_PER_CHUNK - 1) / SEGMENTS_PER_CHUNK];
+    for (int c = 0; c < chunks.length; c++) {
+      final int start = c * SEGMENTS_PER_CHUNK;
+      final int end = Math.min(count, start + SEGMENTS_PER_CHUNK);
+
+      // Tracks leading into each point of the chunk, plus the track on to
+      // the current position from the end of the trail
+      final Path2D tracks = new Path2D.Float();
+      for (int i = Math.max(1, start); i < end; i++) {
+        addTrack(tracks,
+                 (int)(pointList.getX(i - 1) * zoom), (int)(pointList.getY(i - 1) * zoom),
+                 (int)(pointList.getX(i) * zoom), (int)(pointList.getY(i) * zoom), zoom);
+      }
+      if (end == count && !pointList.isLast(here.x, here.y)) {
+        addTrack(tracks,
+                 (int)(pointList.getX(count - 1) * zoom), (int)(pointList.getY(count - 1) * zoom),
+                 (int)(here.x * zoom), (int)(here.y * zoom), zoom);
+      }
+      Rectangle bounds = tracks.getCurrentPoint() == null ?
+        null : tracks.getBounds();
+
+      final int firstCircle = circleCount;
+      for (int i = start; i < end; i++) {
+        final int px = pointList.getX(i);
+        final int py = pointList.getY(i);
+        if (circleRect.contains(px, py) && (px != here.x || py != here.y)) {
+          final Rectangle circle = new Rectangle(
+            (int)((px - trailType.circleRadius) * zoom),
+            (int)((py - trailType.circleRadius) * zoom),
+            diameter, diameter);
+          circles[circleCount] = new Ellipse2D.Float(
+            circle.x, circle.y, circle.width, circle.height);
+          circleIndex[circleCount++] = i;
+          if (bounds == null) {
+            bounds = circle;
           }
           else {
-            Image scaled =
-              ImageUtils.transform((BufferedImage) image, zoom, 0.0);
-            g.drawImage(scaled, x1, y1, obs);
+            bounds.add(circle);
           }
         }
+      }
 
-        // Or some text?
-        final String text = getTrailText(elementCount);
-        if (selected && text != null) {
-          if (font == null || lastZoom != mapZoom) {
-            x1 = (int)(p.x * zoom);
-            y1 = (int)(p.y * zoom);
-            final Font font =
-              new Font("Dialog", Font.PLAIN, (int)(circleRadius * 1.4 * zoom));
-            Labeler.drawLabel(g, text, x1, y1, font, Labeler.CENTER,
-                              Labeler.CENTER, lineColor, null, null);
-
-          }
-          lastZoom = mapZoom;
-        }
+      if (bounds != null) {
+        bounds.grow(margin, margin);
       }
+      chunks[c] = new TrailChunk(bounds, tracks, firstCircle, circleCount);
     }
 
-    g2d.setComposite(oldComposite);
-    g2d.setStroke(oldStroke);
-    g2d.setColor(oldColor);
-    g.setClip(oldClip);
+    return new TrailCache(map, zoom, trailVersion, here, selected,
+      edgeClip, new BasicStroke(thickness), chunks,
+      Arrays.copyOf(circles, circleCount),
+      Arrays.copyOf(circleIndex, circleCount));
   }
 
   /**
-   * Draw a Circle at the given point.
+   * Draw a Circle for a trail point.
    * Override this method to do something different (eg. display an Icon)
    */
-  protected void drawPoint(Graphics g, Point p, double zoom, int elementCount) {
-    final int x = (int)((p.x - circleRadius) * zoom);
-    final int y = (int)((p.y - circleRadius) * zoom);
-    final int radius = (int)(2 * circleRadius * zoom);
-    g.setColor(fillColor);
-    g.fillOval(x, y, radius, radius);
-    g.setColor(lineColor);
-    g.drawOval(x, y, radius, radius);
+  protected void drawPoint(Graphics2D g, Shape circle, int elementCount) {
+    g.setColor(trailType.fillColor);
+    g.fill(circle);
+    g.setColor(trailType.lineColor);
+    g.draw(circle);
   }
 
   /**
-   * Draw a track from one Point to another.
+   * Add a track from one Point to another.
    * Don't draw under the circle as it shows
    * through with transparency turned on.
    */
-  protected void drawTrack(Graphics g, int x1, int y1, int x2, int y2, double zoom) {
-    double lastSqrt = -1;
-    int lastDistSq = -1;
+  protected void addTrack(Path2D path, int x1, int y1, int x2, int y2, double zoom) {
+    final int distSq = (x2 - x1) * (x2 - x1) + (y2 - y1) * (y2 - y1);
+    if (distSq == 0) {
+      return;
+    }
+    final double dist = Math.sqrt(distSq);
+
+    final int xDiff = (int) ((trailType.circleRadius * (x2 - x1) * zoom) / dist);
+    final int yDiff = (int) ((trailType.circleRadius * (y2 - y1) * zoom) / dist);
+
+    path.moveTo(x1 + xDiff, y1 + yDiff);
+    path.lineTo(x2 - xDiff, y2 - yDiff);
+  }
+
+  /**
+   * Zoomed trail geometry, reused between paints until the zoom, the trail,
+   * the position of the piece or its selection state changes.
+   */
+  protected static final class TrailCache {
+    private final Map map;
+    private final double zoom;
+    private final int version;
+    private final int hereX;
+    private final int hereY;
+    private final boolean selected;
+
+    final Rectangle edgeClip;
+    final BasicStroke stroke;
+    final TrailChunk[] chunks;
+    final Shape[] circles;
+    final int[] circleIndex;
+
+    TrailCache(Map map, double zoom, int version, Point here, boolean selected,
+               Rectangle edgeClip, BasicStroke stroke, TrailChunk[] chunks,
+               Shape[] circles, int[] circleIndex) {
+      this.map = map;
+      this.zoom = zoom;
+      this.version = version;
+      this.hereX = here.x;
+      this.hereY = here.y;
+      this.selected = selected;
+      this.edgeClip = edgeClip;
+      this.stroke = stroke;
+      this.chunks = chunks;
+      this.circles = circles;
+      this.circleIndex = circleIndex;
+    }
+
+    boolean matches(Map map, double zoom, int version, Point here,
+                    boolean selected) {
+      return this.map == map && this.zoom == zoom && this.version == version &&
+        hereX == here.x && hereY == here.y && this.selected == selected;
+    }
+  }
+
+  /**
+   * The type configuration of a movement trail. It is parsed once per
+   * distinct type String and shared by every piece of that type, so cloning
+   * a piece or creating one from a palette does not parse it again.
+   */
+  protected static final class TrailType {
+    private static final java.util.Map<String, TrailType> TYPES =
+      new ConcurrentHashMap<>();
+
+    public final NamedKeyStroke trailKey;         // Control Key to invoke
+    public final NamedKeyStroke trailKeyOn;       //BR//
+    public final NamedKeyStroke trailKeyOff;
+    public final NamedKeyStroke trailKeyClear;
+    public final String menuCommand;              // Menu Command
+    public final boolean initiallyVisible;        // Are Trails initially visible?
+    public final boolean globallyVisible;         // Are Trails shared between players?
+    public final int circleRadius;                // Radius of trail point circle
+    public final Color fillColor;                 // Color of Trail circle fill
+    public final Color lineColor;                 // Color of Trail lines
+    public final int selectedTransparency;        // Transparency of trail when unit is selected
+    public final int unSelectedTransparency;      // Transparency of trail when unit is selected/unselected
+    public final int edgePointBuffer;             // How far Off-map to draw trail points (pixels)?
+    public final int edgeDisplayBuffer;           // How far Off-map to draw trail lines (pixels)?
+    public final double lineWidth;
+    public final int maxTrailPoints;              // Most points kept in a trail, 0 for no limit
+    public final int simplifyTolerance;           // Drop points this close to the track (pixels), 0 for never
+    public final String type;                     // Normalized type String
+
+    /**
+     * @return the shared configuration for a type String
+     */
+    public static TrailType get(String type) {
+      return TYPES.computeIfAbsent(type, TrailType::new);
+    }
+
+    private TrailType(String definition) {
+      final SequenceEncoder.Decoder st =
+        new SequenceEncoder.Decoder(definition, ';');
+      st.nextToken();
+
+      trailKey = st.nextNamedKeyStroke(DEFAULT_TRAIL_KEY);
+      trailKeyOn = st.nextNamedKeyStroke(DEFAULT_TRAIL_KEY_ON);   //BR//
+      trailKeyOff = st.nextNamedKeyStroke(DEFAULT_TRAIL_KEY_OFF);
+      trailKeyClear = st.nextNamedKeyStroke(DEFAULT_TRAIL_KEY_CLEAR);
+      menuCommand = st.nextToken(DEFAULT_MENU_COMMAND);
+      initiallyVisible = st.nextBoolean(DEFAULT_INITIALLY_VISIBLE.booleanValue());
+      globallyVisible = st.nextBoolean(DEFAULT_GLOBALLY_VISIBLE.booleanValue());
+      circleRadius = st.nextInt(DEFAULT_CIRCLE_RADIUS);
+      fillColor = st.nextColor(DEFAULT_FILL_COLOR);
+      lineColor = st.nextColor(DEFAULT_LINE_COLOR);
+      selectedTransparency = st.nextInt(DEFAULT_SELECTED_TRANSPARENCY);
+      unSelectedTransparency = st.nextInt(DEFULT_UNSELECTED_TRANSPARENCY);
+      edgePointBuffer = st.nextInt(DEFAULT_EDGE_POINT_BUFFER);
+      edgeDisplayBuffer = st.nextInt(DEFAULT_EDGE_DISPLAY_BUFFER);
+      lineWidth = st.nextDouble(LINE_WIDTH);
+      maxTrailPoints = st.nextInt(DEFAULT_MAX_TRAIL_POINTS);
+      simplifyTolerance = st.nextInt(DEFAULT_SIMPLIFY_TOLERANCE);
+
+      final SequenceEncoder se = new SequenceEncoder(';');
+      se.append(trailKey)
+        .append(trailKeyOn)
+        .append(trailKeyOff)
+        .append(trailKeyClear)
+        .append(menuCommand)
+        .append(initiallyVisible)
+        .append(globallyVisible)
+        .append(circleRadius)
+        .append(fillColor)
+        .append(lineColor)
+        .append(selectedTransparency)
+        .append(unSelectedTransparency)
+        .append(edgePointBuffer)
+        .append(edgeDisplayBuffer)
+        .append(lineWidth)
+        .append(maxTrailPoints)
+        .append(simplifyTolerance);
+      type = ID + se.getValue();
+    }
+  }
+
+  /**
+   * Key of a scaled trail icon: the icon itself (by identity) and the zoom
+   */
+  private static final class ScaledImageKey {
+    private final Image image;
+    private final double zoom;
 
-    int distSq = (x2 - x1) * (x2 - x1) + (y2 - y1) * (y2 - y1);
-    if (distSq != lastDistSq) {
-      lastDistSq = distSq;
-      lastSqrt = Math.sqrt(distSq);
+    ScaledImageKey(Image image, double zoom) {
+      this.image = image;
+      this.zoom = zoom;
     }
 
-    final int xDiff = (int) ((circleRadius * (x2 - x1) * zoom) / lastSqrt);
-    final int yDiff = (int) ((circleRadius * (y2 - y1) * zoom) / lastSqrt);
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof ScaledImageKey)) {
+        return false;
+      }
+      final ScaledImageKey other = (ScaledImageKey) o;
+      return image == other.image && zoom == other.zoom;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(image) + Double.hashCode(zoom);
+    }
+  }
+
+  /**
+   * A run of consecutive trail segments and the circles at their points,
+   * with the zoomed bounds of everything drawn for them.
+   */
+  protected static final class TrailChunk {
+    final Rectangle bounds;
+    final Path2D tracks;
+    final int firstCircle;  // Range of TrailCache.circles in this chunk
+    final int lastCircle;
+
+    TrailChunk(Rectangle bounds, Path2D tracks, int firstCircle,
+               int lastCircle) {
+      this.bounds = bounds;
+      this.tracks = tracks;
+      this.firstCircle = firstCircle;
+      this.lastCircle = lastCircle;
+    }
 
-    g.drawLine(x1 + xDiff, y1 + yDiff, x2 - xDiff, y2 - yDiff);
+    boolean isVisible(Rectangle clip) {
+      return bounds != null && (clip == null || bounds.intersects(clip));
+    }
   }
 
   /**
@@ -574,11 +956,11 @@ public class FTPFootprint extends VASSAL.counters.Footprint {
    * Local Visibility means each player controls their own trail visibility
    */
   protected boolean isTrailVisible() {
-    if (globallyVisible) {
-      return globalVisibility || trailKey == null;
+    if (trailType.globallyVisible) {
+      return globalVisibility || trailType.trailKey == null;
     }
     else {
-      return localVisibility || trailKey == null;
+      return localVisibility || trailType.trailKey == null;
     }
   }
 
@@ -595,27 +977,20 @@ public class FTPFootprint extends VASSAL.counters.Footprint {
    * Return the boundingBox including the trail
    */
   public Rectangle getMyBoundingBox() {
-    if (myBoundingBox == null) {
+    final Point pos = piece.getPosition();
+    if (myBoundingBox == null ||
+        boundingBoxX != pos.x || boundingBoxY != pos.y) {
       final Rectangle bb = piece.boundingBox();
-      final Point pos = piece.getPosition();
-
-      bb.x += pos.x;
-      bb.y += pos.y;
 
-      final int circleDiameter = 2*circleRadius;
-      final Rectangle pr = new Rectangle();
-
-      for (final Point p: pointList) {
-        pr.setBounds(
-          p.x - circleRadius, p.y - circleRadius, circleDiameter, circleDiameter
-        );
-        bb.add(pr);
+      if (trailBounds != null) {
+        bb.translate(pos.x, pos.y);
+        bb.add(trailBounds);
+        bb.translate(-pos.x, -pos.y);
       }
 
-      bb.x -= pos.x;
-      bb.y -= pos.y;
-
       myBoundingBox = bb;
+      boundingBoxX = pos.x;
+      boundingBoxY = pos.y;
     }
     return myBoundingBox;
   }
@@ -630,23 +1005,23 @@ public class FTPFootprint extends VASSAL.counters.Footprint {
 
   public KeyCommand[] myGetKeyCommands() {
     if (commands == null) {
-      if (trailKey != null && ! trailKey.isNull()) {
-        showTrailCommand = new KeyCommand(menuCommand, trailKey, Decorator.getOutermost(this), this);
+      if (trailType.trailKey != null && ! trailType.trailKey.isNull()) {
+        showTrailCommand = new KeyCommand(trailType.menuCommand, trailType.trailKey, Decorator.getOutermost(this), this);
       }
       
       //BR// Add our special new force-on and force-offs
-      if (trailKeyOn != null && !trailKeyOn.isNull( )) {
-    	showTrailCommandOn = new KeyCommand("", trailKeyOn, Decorator.getOutermost(this), this);  
+      if (trailType.trailKeyOn != null && !trailType.trailKeyOn.isNull( )) {
+    	showTrailCommandOn = new KeyCommand("", trailType.trailKeyOn, Decorator.getOutermost(this), this);  
       }
-      if (trailKeyOff != null && !trailKeyOff.isNull( )) {
-    	showTrailCommandOff = new KeyCommand("", trailKeyOff, Decorator.getOutermost(this), this);  
+      if (trailType.trailKeyOff != null && !trailType.trailKeyOff.isNull( )) {
+    	showTrailCommandOff = new KeyCommand("", trailType.trailKeyOff, Decorator.getOutermost(this), this);  
       }
-      if (trailKeyClear != null && !trailKeyClear.isNull()) {
-    	showTrailCommandClear = new KeyCommand("", trailKeyClear, Decorator.getOutermost(this), this);
+      if (trailType.trailKeyClear != null && !trailType.trailKeyClear.isNull()) {
+    	showTrailCommandClear = new KeyCommand("", trailType.trailKeyClear, Decorator.getOutermost(this), this);
       }
       
       if (showTrailCommand != null
-          && menuCommand.length() > 0) {    	      	  
+          && trailType.menuCommand.length() > 0) {    	      	  
         commands = new KeyCommand[]{showTrailCommand};        
       }
       else {
@@ -665,7 +1040,7 @@ public class FTPFootprint extends VASSAL.counters.Footprint {
         && showTrailCommand.matches(stroke)) {
       final ChangeTracker tracker = new ChangeTracker(this);
       initialized = true;
-      if (globallyVisible) {
+      if (trailType.globallyVisible) {
         globalVisibility = !globalVisibility;
       }
       else {
@@ -680,7 +1055,7 @@ public class FTPFootprint extends VASSAL.counters.Footprint {
     if ((showTrailCommandOn != null) && showTrailCommandOn.matches(stroke)) {
         final ChangeTracker tracker = new ChangeTracker(this);
         initialized = true;
-        if (globallyVisible) {
+        if (trailType.globallyVisible) {
           globalVisibility = true;
         }
         else {
@@ -693,7 +1068,7 @@ public class FTPFootprint extends VASSAL.counters.Footprint {
     if ((showTrailCommandOff != null) && showTrailCommandOff.matches(stroke)) {
         final ChangeTracker tracker = new ChangeTracker(this);
         initialized = true;
-        if (globallyVisible) {
+        if (trailType.globallyVisible) {
           globalVisibility = false;
         }
         else {
@@ -718,7 +1093,7 @@ public class FTPFootprint extends VASSAL.counters.Footprint {
 
   public PieceI18nData getI18nData() {
     final PieceI18nData data = super.getI18nData();
-    data.add(menuCommand, "Show Movement Trail command");
+    data.add(trailType.menuCommand, "Show Movement Trail command");
     return data;
   }
 
@@ -744,63 +1119,74 @@ public class FTPFootprint extends VASSAL.counters.Footprint {
     private IntConfigurer pb;
     private IntConfigurer db;
     private DoubleConfigurer lw;
+    private IntConfigurer mp;
+    private IntConfigurer sp;
 
     public Ed(FTPFootprint p) {
       controls = new JPanel();
       controls.setLayout(new BoxLayout(controls, BoxLayout.Y_AXIS));
 
       Box b;
-      trailKeyInput = new NamedHotKeyConfigurer(null, "TOGGLE Key Command:  ", p.trailKey);
+      trailKeyInput = new NamedHotKeyConfigurer(null, "TOGGLE Key Command:  ", p.trailType.trailKey);
       controls.add(trailKeyInput.getControls());
 
-      mc = new StringConfigurer(null, "Menu Command:  ", p.menuCommand);
+      mc = new StringConfigurer(null, "Menu Command:  ", p.trailType.menuCommand);
       controls.add(mc.getControls());
 
       //BR// two new bonus items
-      trailKeyOn = new NamedHotKeyConfigurer(null, "TURN ON Key Command:  ", p.trailKeyOn);
+      trailKeyOn = new NamedHotKeyConfigurer(null, "TURN ON Key Command:  ", p.trailType.trailKeyOn);
       controls.add(trailKeyOn.getControls());      
-      trailKeyOff = new NamedHotKeyConfigurer(null, "TURN OFF Key Command:  ", p.trailKeyOff);
+      trailKeyOff = new NamedHotKeyConfigurer(null, "TURN OFF Key Command:  ", p.trailType.trailKeyOff);
       controls.add(trailKeyOff.getControls());
-      trailKeyClear = new NamedHotKeyConfigurer(null, "CLEAR TRAIL Key Command:  ", p.trailKeyClear);
+      trailKeyClear = new NamedHotKeyConfigurer(null, "CLEAR TRAIL Key Command:  ", p.trailType.trailKeyClear);
       controls.add(trailKeyClear.getControls());
 
       iv = new BooleanConfigurer(null, "Trails start visible?",
-                                 Boolean.valueOf(p.initiallyVisible));
+                                 Boolean.valueOf(p.trailType.initiallyVisible));
       controls.add(iv.getControls());
 
       gv = new BooleanConfigurer(null, "Trails are visible to all players?",
-                                 Boolean.valueOf(p.globallyVisible));
+                                 Boolean.valueOf(p.trailType.globallyVisible));
       controls.add(gv.getControls());
 
-      cr = new IntConfigurer(null, "Circle Radius:  ", p.circleRadius);
+      cr = new IntConfigurer(null, "Circle Radius:  ", p.trailType.circleRadius);
       controls.add(cr.getControls());
 
-      fc = new ColorConfigurer(null, "Circle Fill Color:  ", p.fillColor);
+      fc = new ColorConfigurer(null, "Circle Fill Color:  ", p.trailType.fillColor);
       controls.add(fc.getControls());
 
-      lc = new ColorConfigurer(null, "Line Color:  ", p.lineColor);
+      lc = new ColorConfigurer(null, "Line Color:  ", p.trailType.lineColor);
       controls.add(lc.getControls());
 
-      lw = new DoubleConfigurer(null,"Line thickness:  ", p.lineWidth);
+      lw = new DoubleConfigurer(null,"Line thickness:  ", p.trailType.lineWidth);
       controls.add(lw.getControls());
 
-      st = new IntConfigurer(null, "Selected Unit Trail Transparency (0-100):  ", p.selectedTransparency);
+      st = new IntConfigurer(null, "Selected Unit Trail Transparency (0-100):  ", p.trailType.selectedTransparency);
       controls.add(st.getControls());
 
-      ut = new IntConfigurer(null, "Unselected Unit Trail Transparency (0-100):  ", p.unSelectedTransparency);
+      ut = new IntConfigurer(null, "Unselected Unit Trail Transparency (0-100):  ", p.trailType.unSelectedTransparency);
       controls.add(ut.getControls());
 
       b = Box.createHorizontalBox();
-      pb = new IntConfigurer(null, "Display Trail Points Off-map for ", p.edgePointBuffer);
+      pb = new IntConfigurer(null, "Display Trail Points Off-map for ", p.trailType.edgePointBuffer);
       b.add(pb.getControls());
       b.add(new JLabel("pixels"));
       controls.add(b);
 
       b = Box.createHorizontalBox();
-      db = new IntConfigurer(null, "Display Trails Off-map for  ", p.edgeDisplayBuffer);
+      db = new IntConfigurer(null, "Display Trails Off-map for  ", p.trailType.edgeDisplayBuffer);
       b.add(db.getControls());
       b.add(new JLabel("pixels"));
       controls.add(b);
+
+      mp = new IntConfigurer(null, "Maximum Trail Points (0 = no limit):  ", p.trailType.maxTrailPoints);
+      controls.add(mp.getControls());
+
+      b = Box.createHorizontalBox();
+      sp = new IntConfigurer(null, "Drop Trail Points within ", p.trailType.simplifyTolerance);
+      b.add(sp.getControls());
+      b.add(new JLabel("pixels of a straight track (0 = never)"));
+      controls.add(b);
     }
 
     public String getState() {
@@ -824,7 +1210,9 @@ public class FTPFootprint extends VASSAL.counters.Footprint {
         .append(ut.getValueString())
         .append(pb.getValueString())
         .append(db.getValueString())
-        .append(lw.getValueString());
+        .append(lw.getValueString())
+        .append(mp.getValueString())
+        .append(sp.getValueString());
       return se.getValue();
     }
 
@@ -20,7 +20,6 @@ package ForThePeople;
 import VASSAL.build.Buildable;
 import VASSAL.build.GameModule;
 import VASSAL.build.module.Map;
-import VASSAL.build.module.properties.MutableProperty;
 import VASSAL.command.Command;
 import VASSAL.command.NullCommand;
 import VASSAL.counters.GamePiece;
@@ -30,7 +29,6 @@ import VASSAL.tools.swing.SwingUtils;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
-import java.util.Iterator;
 
 /**
  * This KeyListener forwards key event from a {@link Map} to the
@@ -44,30 +42,6 @@ public class FTPForwardToKeyBuffer extends VASSAL.build.module.map.ForwardToKeyB
   private KeyEvent lastConsumedEvent;
 
   protected void process(KeyEvent e) {
-    Command comm = new NullCommand();
-
-    //BR// Clears a global property flag once per stack move (to avoid duplication of certain global key commands)
-    //BR// A trigger processing this can then set the flag to indicate the once-per-stack-move event has been handled.
-    MutableProperty.Impl existingValue = (MutableProperty.Impl) GameModule.getGameModule().getMutableProperty("ClearedOncePerStackMove");
-    if (existingValue != null) {
-      comm = comm.append(existingValue.setPropertyValue("0"));
-      //GameModule.getGameModule().sendAndLog(existingValue.setPropertyValue("0"));
-    }
-
-    MutableProperty.Impl existingValue2 = (MutableProperty.Impl) GameModule.getGameModule().getMutableProperty("SizeOfStackMove");
-    if (existingValue2 != null) {
-      //BR// An absolutely appalling way to get the number of pieces being sent the command.
-      int size = 0;
-      Iterator<GamePiece> i = KeyBuffer.getBuffer().getPiecesIterator();
-      while (i.hasNext() ) {
-        size++;
-        i.next();
-      }
-
-      comm = comm.append(existingValue2.setPropertyValue(Integer.toString(size)));
-      //GameModule.getGameModule().sendAndLog(existingValue2.setPropertyValue(Integer.toString(size)));
-    }
-
     // If we've consumed a KeyPressed event,
     // then automatically consume any following KeyTyped event
     // resulting from the same keypress
@@ -83,6 +57,13 @@ public class FTPForwardToKeyBuffer extends VASSAL.build.module.map.ForwardToKeyB
     // Don't pass modifier keys alone to counters
     final boolean onlyModifierKeys = (c == KeyEvent.VK_SHIFT || c == KeyEvent.VK_CONTROL || c == KeyEvent.VK_ALT || c == KeyEvent.VK_META);
     if (!e.isConsumed() && !onlyModifierKeys) { 
+      Command comm = new NullCommand();
+
+      //BR// Clears a global property flag once per stack move (to avoid duplication of certain global key commands)
+      //BR// A trigger processing this can then set the flag to indicate the once-per-stack-move event has been handled.
+      //BR// Only worth doing if the key is actually going to some pieces.
+      comm = comm.append(FTPStackMoveProperties.getInstance().resetForSelection());
+
       comm = comm.append(KeyBuffer.getBuffer().keyCommand
           (SwingUtils.getKeyStrokeForEvent(e)));
       if (comm != null && !comm.isNull()) {
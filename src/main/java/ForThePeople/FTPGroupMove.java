@@ -0,0 +1,103 @@
+//BR// One command for a whole group of pieces dropped on the same place, in place of a MovePiece per piece
+package ForThePeople;
+
+import VASSAL.command.Command;
+import VASSAL.command.MovePiece;
+import VASSAL.command.NullCommand;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Moves a list of pieces, in order, to a single destination. It has exactly
+ * the effect of the equivalent sequence of {@link MovePiece} commands, but the
+ * destination and player are only recorded once, so it encodes to a much
+ * shorter String when a whole army is moved.
+ */
+public class FTPGroupMove extends Command {
+  private final String mapId;
+  private final Point position;
+  private final String playerId;
+  private final List<MovePiece> moves = new ArrayList<>();
+
+  public FTPGroupMove(String mapId, Point position, String playerId) {
+    this.mapId = mapId;
+    this.position = new Point(position);
+    this.playerId = playerId;
+  }
+
+  public String getMapId() {
+    return mapId;
+  }
+
+  public Point getPosition() {
+    return new Point(position);
+  }
+
+  public String getPlayerId() {
+    return playerId;
+  }
+
+  /**
+   * @return the moves making up this group, in the order they are executed
+   */
+  public List<MovePiece> getMoves() {
+    return Collections.unmodifiableList(moves);
+  }
+
+  /**
+   * @return true if the move goes to this group's destination
+   */
+  public boolean accepts(MovePiece move) {
+    return position.equals(move.getNewPosition())
+      && same(mapId, move.getNewMapId())
+      && same(playerId, move.getPlayerId());
+  }
+
+  /**
+   * Add a piece to the group, moving it from where it was to this group's
+   * destination, beneath newUnderneathId
+   */
+  public void add(String id, String newUnderneathId, String oldMapId, Point oldPosition, String oldUnderneathId) {
+    moves.add(new MovePiece(id, mapId, position, newUnderneathId, oldMapId, oldPosition, oldUnderneathId, playerId));
+  }
+
+  /**
+   * Add a move that is {@link #accepts accepted} by this group. Any
+   * subcommands of the move are not included.
+   */
+  public void add(MovePiece move) {
+    add(move.getId(), move.getNewUnderneathId(), move.getOldMapId(), move.getOldPosition(), move.getOldUnderneathId());
+  }
+
+  public int size() {
+    return moves.size();
+  }
+
+  @Override
+  public boolean isNull() {
+    return moves.isEmpty();
+  }
+
+  @Override
+  protected void executeCommand() {
+    for (MovePiece move : moves) {
+      move.execute();
+    }
+  }
+
+  @Override
+  protected Command myUndoCommand() {
+    Command undo = new NullCommand();
+    for (int i = moves.size() - 1; i >= 0; --i) {
+      undo = undo.append(moves.get(i).getUndoCommand());
+    }
+    return undo;
+  }
+
+  private static boolean same(String a, String b) {
+    return a == null ? b == null : a.equals(b);
+  }
+}
@@ -22,7 +22,6 @@ import VASSAL.build.Buildable;
 import VASSAL.build.GameModule;
 import VASSAL.build.module.Map;
 import VASSAL.build.module.map.DrawPile;
-import VASSAL.build.module.properties.MutableProperty;
 import VASSAL.command.Command;
 import VASSAL.counters.Deck;
 import VASSAL.counters.EventFilter;
@@ -36,7 +35,6 @@ import VASSAL.counters.Properties;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
-import javax.swing.Action;
 import javax.swing.JMenu;
 import javax.swing.JMenuItem;
 import javax.swing.JPopupMenu;
@@ -51,13 +49,33 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 
 public class FTPMenuDisplayer extends VASSAL.build.module.map.MenuDisplayer implements Buildable {
   public static Font POPUP_MENU_FONT = new Font("Dialog", 0, 10);
 
+  //BR// Menu layouts by signature, limited to the most recently used. A layout holds only
+  //BR// command indexes, never the KeyCommands or menu items, so it keeps no piece alive.
+  protected static final int MENU_CACHE_SIZE = 64;
+  private static final java.util.Map<String, MenuLayout> MENU_LAYOUTS =
+    new LinkedHashMap<String, MenuLayout>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(java.util.Map.Entry<String, MenuLayout> eldest) {
+        return size() > MENU_CACHE_SIZE;
+      }
+    };
+
   protected Map map;
   protected PieceFinder targetSelector;
+  //BR// The menu items last built on this map, for a repeat click on the same piece
+  protected GamePiece lastTarget;
+  protected MenuItems lastItems;
 
   @Override
   public void addTo(Buildable b) {
@@ -77,8 +95,7 @@ public class FTPMenuDisplayer extends VASSAL.build.module.map.MenuDisplayer impl
       @Override
       public Object visitDeck(Deck d) {
         Point pos = d.getPosition();
-        Point p = new Point(pt.x - pos.x, pt.y - pos.y);
-        if (d.getShape().contains(p)) {
+        if (d.getShape().contains(pt.x - pos.x, pt.y - pos.y)) {
           return d;
         }
         else {
@@ -114,7 +131,7 @@ public class FTPMenuDisplayer extends VASSAL.build.module.map.MenuDisplayer impl
     JMenuItem item = new JMenuItem(keyCommand.isMenuSeparator() ? MenuSeparator.SEPARATOR_NAME : getMenuText(keyCommand));
     item.addActionListener(keyCommand);
     if (!(target instanceof DrawPile)) {
-      item.addActionListener(new FTPClearer()); //BR//
+      item.addActionListener(FTPClearer.getInstance()); //BR//
     }
     item.setFont(POPUP_MENU_FONT);
     item.setEnabled(keyCommand.isEnabled());
@@ -124,31 +141,23 @@ public class FTPMenuDisplayer extends VASSAL.build.module.map.MenuDisplayer impl
 
   //BR// Clears a global property flag once per stack move (to avoid duplication of certain global key commands)
   //BR// A trigger processing this can then set the flag to indicate the once-per-stack-move event has been handled.
+  //BR// It holds no state, so one is shared by every menu item
   public static class FTPClearer implements ActionListener
   {
-    public void actionPerformed(ActionEvent e) {
+    private static final FTPClearer instance = new FTPClearer();
 
-      Command comm = null;
-
-      MutableProperty.Impl existingValue = (MutableProperty.Impl) GameModule.getGameModule().getMutableProperty("ClearedOncePerStackMove");
-      if (existingValue != null) {
-        comm = existingValue.setPropertyValue("0");
-      }
-
-      MutableProperty.Impl existingValue2 = (MutableProperty.Impl) GameModule.getGameModule().getMutableProperty("SizeOfStackMove");
-      if (comm != null && existingValue2 != null) {
-        //BR// An absolutely appalling way to get the number of pieces being sent the command.
-        int size = 0;
-        Iterator<GamePiece> i = KeyBuffer.getBuffer().getPiecesIterator();
-        while (i.hasNext() ) {
-          size++;
-          i.next();
-        }
+    public static FTPClearer getInstance() {
+      return instance;
+    }
 
-        comm = comm.append(existingValue2.setPropertyValue(Integer.toString(size)));
+    public void actionPerformed(ActionEvent e) {
+      //BR// Same as for keystrokes, except that the stack size only goes with the flag
+      final FTPStackMoveProperties stackMove = FTPStackMoveProperties.getInstance();
+      if (!stackMove.hasClearedFlag()) {
+        return;
       }
-
-      if ((comm != null) && !comm.isNull()) {
+      final Command comm = stackMove.resetForSelection();
+      if (!comm.isNull()) {
         GameModule.getGameModule().sendAndLog(comm);
       }
     }
@@ -167,72 +176,42 @@ public class FTPMenuDisplayer extends VASSAL.build.module.map.MenuDisplayer impl
    * @return
    */
   public static JPopupMenu createPopup(GamePiece target, boolean global) {
+    return createPopup(target, global, null);
+  }
+
+  /**
+   * @param displayer If not null, the menu items it last built are reused
+   * if they were for the same target and commands, and the new ones are
+   * kept there otherwise
+   */
+  protected static JPopupMenu createPopup(GamePiece target, boolean global, FTPMenuDisplayer displayer) {
     JPopupMenu popup = new JPopupMenu();
     KeyCommand[] c = (KeyCommand[]) target.getProperty(Properties.KEY_COMMANDS);
     if (c != null) {
-      ArrayList<JMenuItem> commands = new ArrayList<>();
-      ArrayList<KeyStroke> strokes = new ArrayList<>();
-
-      // Maps instances of KeyCommandSubMenu to corresponding JMenu
-      HashMap<KeyCommandSubMenu, JMenu> subMenus = new HashMap<>();
-      // Maps name to a list of commands with that name
-      HashMap<String, ArrayList<JMenuItem>> commandNames = new HashMap<>();
-
       for (KeyCommand keyCommand : c) {
         keyCommand.setGlobal(global);
-        KeyStroke stroke = keyCommand.getKeyStroke();
-        JMenuItem item = null;
-        if (keyCommand instanceof KeyCommandSubMenu) {
-          JMenu subMenu = new JMenu(getMenuText(keyCommand));
-          subMenu.setFont(POPUP_MENU_FONT);
-          subMenus.put((KeyCommandSubMenu) keyCommand, subMenu);
-          item = subMenu;
-          commands.add(item);
-          strokes.add(KeyStroke.getKeyStroke('\0'));
-        }
-        else {
-          if (strokes.contains(stroke) && !keyCommand.isMenuSeparator()) {
-            JMenuItem command = commands.get(strokes.indexOf(stroke));
-            Action action = command.getAction();
-            if (action != null) {
-              String commandName =
-                (String) command.getAction().getValue(Action.NAME);
-              if (commandName == null ||
-                      commandName.length() < keyCommand.getName().length()) {
-                item = makeMenuItem(keyCommand, target);
-                commands.set(strokes.indexOf(stroke), item);
-              }
-            }
-          }
-          else {
-            strokes.add(((stroke != null) && !keyCommand.isMenuSeparator()) ? stroke : KeyStroke.getKeyStroke('\0'));
-            item = makeMenuItem(keyCommand, target);
-            commands.add(item);
-          }
-        }
-        if (keyCommand.getName() != null &&
-            keyCommand.getName().length() > 0 &&
-            item != null) {
-          ArrayList<JMenuItem> l = commandNames.computeIfAbsent(keyCommand.getName(), k -> new ArrayList<>());
-          l.add(item);
-        }
       }
 
-      // Move commands from main menu into submenus
-      for (java.util.Map.Entry<KeyCommandSubMenu, JMenu> e :
-                                                        subMenus.entrySet()) {
-        final KeyCommandSubMenu menuCommand = e.getKey();
-        final JMenu subMenu = e.getValue();
-
-        for (Iterator<String> it2 = menuCommand.getCommands(); it2.hasNext();) {
-          final ArrayList<JMenuItem> matchingCommands =
-            commandNames.get(it2.next());
-          if (matchingCommands != null) {
-            for (JMenuItem item : matchingCommands) {
-              subMenu.add(item);
-              commands.remove(item);
-            }
-          }
+      //BR// Pieces of the same type in the same state have the same menu, so it is only
+      //BR// worked out once.
+      final boolean drawPile = target instanceof DrawPile;
+      final String signature = getMenuSignature(c, drawPile);
+      MenuLayout layout = MENU_LAYOUTS.get(signature);
+      if (layout == null) {
+        layout = resolveMenuLayout(c);
+        MENU_LAYOUTS.put(signature, layout);
+      }
+
+      //BR// Clicking the same piece again reuses its menu items as well
+      MenuItems items = displayer != null && displayer.lastTarget == target ? displayer.lastItems : null;
+      if (items != null && items.isFor(layout, c)) {
+        items.updateEnabled(c);
+      }
+      else {
+        items = new MenuItems(layout, c, target);
+        if (displayer != null) {
+          displayer.lastTarget = target;
+          displayer.lastItems = items;
         }
       }
 
@@ -247,7 +226,7 @@ public class FTPMenuDisplayer extends VASSAL.build.module.map.MenuDisplayer impl
       //   }
       // }
 
-      for (JMenuItem item : commands) {
+      for (JMenuItem item : items.top) {
         if ((item.getText() != null) && MenuSeparator.SEPARATOR_NAME.equals(item.getText())) {
           popup.addSeparator();
         } 
@@ -259,6 +238,186 @@ public class FTPMenuDisplayer extends VASSAL.build.module.map.MenuDisplayer impl
     return popup;
   }
 
+  /**
+   * @return a String that is the same for any two command lists that produce the same menu
+   */
+  protected static String getMenuSignature(KeyCommand[] c, boolean drawPile) {
+    final StringBuilder sb = new StringBuilder(c.length * 16);
+    sb.append(drawPile ? 'D' : 'P');
+    for (KeyCommand keyCommand : c) {
+      sb.append('\n');
+      if (keyCommand instanceof KeyCommandSubMenu) {
+        sb.append('S');
+        for (Iterator<String> it = ((KeyCommandSubMenu) keyCommand).getCommands(); it.hasNext();) {
+          sb.append('\t').append(it.next());
+        }
+      }
+      else {
+        sb.append(keyCommand.isMenuSeparator() ? 'X' : 'C');
+      }
+      sb.append('\r').append(keyCommand.getName())
+        .append('\r').append(keyCommand.getKeyStroke());
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Work out which commands appear in the menu, and where
+   */
+  protected static MenuLayout resolveMenuLayout(KeyCommand[] c) {
+    //BR// Hashed so that building the menu is linear in the number of commands
+    LinkedHashSet<MenuNode> commands = new LinkedHashSet<>();
+    HashSet<KeyStroke> strokes = new HashSet<>();
+    ArrayList<MenuNode> subMenus = new ArrayList<>();
+
+    // Maps name to a list of commands with that name
+    HashMap<String, ArrayList<MenuNode>> commandNames = new HashMap<>();
+
+    for (int i = 0; i < c.length; i++) {
+      final KeyCommand keyCommand = c[i];
+      KeyStroke stroke = keyCommand.getKeyStroke();
+      MenuNode node = null;
+      if (keyCommand instanceof KeyCommandSubMenu) {
+        node = new MenuNode(i, true);
+        subMenus.add(node);
+        commands.add(node);
+        strokes.add(KeyStroke.getKeyStroke('\0'));
+      }
+      //BR// A command with the same keystroke as an earlier one is left out. (The old
+      //BR// code meant to keep the one with the longer name, but looked for that on the
+      //BR// item's Action, which our menu items never have.)
+      else if (!strokes.contains(stroke) || keyCommand.isMenuSeparator()) {
+        strokes.add(((stroke != null) && !keyCommand.isMenuSeparator()) ? stroke : KeyStroke.getKeyStroke('\0'));
+        node = new MenuNode(i, false);
+        commands.add(node);
+      }
+      if (keyCommand.getName() != null &&
+          keyCommand.getName().length() > 0 &&
+          node != null) {
+        ArrayList<MenuNode> l = commandNames.computeIfAbsent(keyCommand.getName(), k -> new ArrayList<>());
+        l.add(node);
+      }
+    }
+
+    // Move commands from main menu into submenus
+    for (MenuNode subMenu : subMenus) {
+      final KeyCommandSubMenu menuCommand = (KeyCommandSubMenu) c[subMenu.index];
+      for (Iterator<String> it2 = menuCommand.getCommands(); it2.hasNext();) {
+        final ArrayList<MenuNode> matchingCommands =
+          commandNames.get(it2.next());
+        if (matchingCommands != null) {
+          for (MenuNode node : matchingCommands) {
+            if (node != subMenu) {
+              subMenu.add(node);
+              commands.remove(node);
+            }
+          }
+        }
+      }
+    }
+
+    return new MenuLayout(new ArrayList<>(commands), c.length);
+  }
+
+  /**
+   * One entry in a menu: the index of its KeyCommand and, for a submenu, its contents
+   */
+  protected static class MenuNode {
+    final int index;
+    final LinkedHashSet<MenuNode> children;
+    MenuNode parent;
+
+    MenuNode(int index, boolean subMenu) {
+      this.index = index;
+      children = subMenu ? new LinkedHashSet<>() : null;
+    }
+
+    /**
+     * Add node to the end of this submenu, taking it out of any submenu it is already in
+     */
+    void add(MenuNode node) {
+      if (node.parent != null) {
+        node.parent.children.remove(node);
+      }
+      children.add(node);
+      node.parent = this;
+    }
+  }
+
+  /**
+   * The resolved structure of a menu
+   */
+  protected static class MenuLayout {
+    final List<MenuNode> top;
+    final int commandCount;
+
+    MenuLayout(List<MenuNode> top, int commandCount) {
+      this.top = top;
+      this.commandCount = commandCount;
+    }
+  }
+
+  /**
+   * The menu items built from a layout for one piece's KeyCommands
+   */
+  protected static class MenuItems {
+    final MenuLayout layout;
+    final KeyCommand[] commands;
+    final JMenuItem[] items;     // By command index
+    final List<JMenuItem> top;
+
+    MenuItems(MenuLayout layout, KeyCommand[] c, GamePiece target) {
+      this.layout = layout;
+      commands = c.clone();
+      items = new JMenuItem[layout.commandCount];
+      top = new ArrayList<>(layout.top.size());
+      for (MenuNode node : layout.top) {
+        top.add(makeItem(node, target));
+      }
+    }
+
+    /**
+     * @return true if these items were built from this layout and the very same KeyCommands
+     */
+    boolean isFor(MenuLayout l, KeyCommand[] c) {
+      if (layout != l || commands.length != c.length) {
+        return false;
+      }
+      for (int i = 0; i < c.length; i++) {
+        if (commands[i] != c[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    void updateEnabled(KeyCommand[] c) {
+      for (int i = 0; i < c.length; i++) {
+        if (items[i] != null && !(items[i] instanceof JMenu)) {
+          items[i].setEnabled(c[i].isEnabled());
+        }
+      }
+    }
+
+    private JMenuItem makeItem(MenuNode node, GamePiece target) {
+      final KeyCommand keyCommand = commands[node.index];
+      final JMenuItem item;
+      if (node.children != null) {
+        final JMenu subMenu = new JMenu(getMenuText(keyCommand));
+        subMenu.setFont(POPUP_MENU_FONT);
+        for (MenuNode child : node.children) {
+          subMenu.add(makeItem(child, target));
+        }
+        item = subMenu;
+      }
+      else {
+        item = makeMenuItem(keyCommand, target);
+      }
+      items[node.index] = item;
+      return item;
+    }
+  }
+
   @Override
   public void mousePressed(MouseEvent e) {
     maybePopup(e);
@@ -284,7 +443,7 @@ public class FTPMenuDisplayer extends VASSAL.build.module.map.MenuDisplayer impl
       return;
     }
 
-    JPopupMenu popup = createPopup(p, true);
+    JPopupMenu popup = createPopup(p, true, this);
     popup.addPopupMenuListener(new PopupMenuListener() {
       @Override
       public void popupMenuCanceled(PopupMenuEvent evt) {
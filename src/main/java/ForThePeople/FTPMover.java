@@ -25,8 +25,9 @@ import VASSAL.build.GameModule;
 import VASSAL.build.module.GlobalOptions;
 import VASSAL.build.module.Map;
 import VASSAL.build.module.map.MovementReporter;
-import VASSAL.build.module.properties.MutableProperty;
+import VASSAL.command.ChangePiece;
 import VASSAL.command.Command;
+import VASSAL.command.MovePiece;
 import VASSAL.command.NullCommand;
 import VASSAL.counters.BoundsTracker;
 import VASSAL.counters.Deck;
@@ -38,15 +39,33 @@ import VASSAL.counters.Properties;
 import VASSAL.counters.Stack;
 
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * This is a MouseListener that moves pieces onto a Map window
  */
 public class FTPMover extends VASSAL.build.module.map.PieceMover {
+  //BR// Whether the module can encode FTPGroupMove, checked once per module
+  private static GameModule encoderCheckModule;
+  private static boolean groupMovesEncodable;
+
+  @Override
   public Command movePieces(Map map, Point p) {
+    //BR// Every piece in the drop updates its movement trail; repaint them all in one go at the end
+    FTPFootprint.beginTrailBatch();
+    try {
+      return moveDraggedPieces(map, p);
+    }
+    finally {
+      FTPFootprint.endTrailBatch();
+    }
+  }
+
+  protected Command moveDraggedPieces(Map map, Point p) {
     final List<GamePiece> allDraggedPieces = new ArrayList<>();
     final PieceIterator it = DragBuffer.getBuffer().getIterator();
     if (!it.hasMoreElements()) return null;
@@ -55,10 +74,14 @@ public class FTPMover extends VASSAL.build.module.map.PieceMover {
     Point offset = null;
     Command comm = new NullCommand();
     final BoundsTracker tracker = new BoundsTracker();
-    // Map of Point->List<GamePiece> of pieces to merge with at a given
-    // location. There is potentially one piece for each Game Piece Layer.
-    final HashMap<Point, List<GamePiece>> mergeTargets =
-      new HashMap<>();
+    //BR// Pieces to merge with at the drop point. There is potentially one piece
+    //BR// for each Game Piece Layer. Since everything is dropped on the same point,
+    //BR// one list does the job of the usual Point->List<GamePiece> map: only
+    //BR// targets at exactly p2 are kept, as those are the only ones looked up.
+    final List<GamePiece> mergeCandidates = new ArrayList<>(2);
+    //BR// Everything lands on the same point, so find what is already there just once
+    final List<GamePiece> dropCandidates = findDropCandidates(map, p2);
+    final ArrayList<GamePiece> draggedPieces = new ArrayList<>();
     while (it.hasMoreElements()) {
       dragging = it.nextPiece();
       tracker.addPiece(dragging);
@@ -66,9 +89,12 @@ public class FTPMover extends VASSAL.build.module.map.PieceMover {
        * Take a copy of the pieces in dragging.
        * If it is a stack, it is cleared by the merging process.
        */
-      final ArrayList<GamePiece> draggedPieces = new ArrayList<>(0);
+      draggedPieces.clear();
       if (dragging instanceof Stack) {
-        draggedPieces.addAll(((Stack) dragging).asList());
+        final Stack s = (Stack) dragging;
+        for (int i = 0, n = s.getPieceCount(); i < n; ++i) {
+          draggedPieces.add(s.getPieceAt(i));
+        }
       }
       else {
         draggedPieces.add(dragging);
@@ -80,24 +106,21 @@ public class FTPMover extends VASSAL.build.module.map.PieceMover {
       //}
       p = p2; //BR// Always the same point
 
-      List<GamePiece> mergeCandidates = mergeTargets.get(p);
       GamePiece mergeWith = null;
       // Find an already-moved piece that we can merge with at the destination
       // point
-      if (mergeCandidates != null) {
-        for (int i = 0, n = mergeCandidates.size(); i < n; ++i) {
-          final GamePiece candidate = mergeCandidates.get(i);
-          if (map.getPieceCollection().canMerge(candidate, dragging)) {
-            mergeWith = candidate;
-            mergeCandidates.set(i, dragging);
-            break;
-          }
+      for (int i = 0, n = mergeCandidates.size(); i < n; ++i) {
+        final GamePiece candidate = mergeCandidates.get(i);
+        if (map.getPieceCollection().canMerge(candidate, dragging)) {
+          mergeWith = candidate;
+          mergeCandidates.set(i, dragging);
+          break;
         }
       }
 
       // Now look for an already-existing piece at the destination point
       if (mergeWith == null) {
-        mergeWith = map.findAnyPiece(p, dropTargetSelector);
+        mergeWith = findDropTarget(map, dropCandidates, p);
         if (mergeWith == null && !Boolean.TRUE.equals(
           dragging.getProperty(Properties.IGNORE_GRID))) {
           p = map.snapTo(p);
@@ -108,28 +131,30 @@ public class FTPMover extends VASSAL.build.module.map.PieceMover {
             p.y - dragging.getPosition().y);
         }
 
-        if (mergeWith != null && map.getStackMetrics().isStackingEnabled()) {
-          mergeCandidates = new ArrayList<>();
+        if (mergeWith != null && map.getStackMetrics().isStackingEnabled() && p.equals(p2)) {
+          mergeCandidates.clear();
           mergeCandidates.add(dragging);
           mergeCandidates.add(mergeWith);
-          mergeTargets.put(p, mergeCandidates);
         }
       }
 
       if (mergeWith == null) {
         comm = comm.append(movedPiece(dragging, p));
         comm = comm.append(map.placeAt(dragging, p));
+        dropCandidates.add(0, dragging);
         if (!(dragging instanceof Stack) &&
           !Boolean.TRUE.equals(dragging.getProperty(Properties.NO_STACK))) {
           final Stack parent = map.getStackMetrics().createStack(dragging);
           if (parent != null) {
             comm = comm.append(map.placeAt(parent, p));
+            dropCandidates.add(0, parent);
 
             //BR// We've made a new stack, so put it on the list of merge targets, in case more pieces land here too
-            mergeCandidates = new ArrayList<>();
-            mergeCandidates.add(dragging);
-            mergeCandidates.add(parent);
-            mergeTargets.put(p, mergeCandidates);
+            if (p.equals(p2)) {
+              mergeCandidates.clear();
+              mergeCandidates.add(dragging);
+              mergeCandidates.add(parent);
+            }
           }
         }
       }
@@ -185,9 +210,17 @@ public class FTPMover extends VASSAL.build.module.map.PieceMover {
       tracker.addPiece(dragging);
     }
 
+    Command report = null;
     if (GlobalOptions.getInstance().autoReportEnabled()) {
-      final Command report = createMovementReporter(comm).getReportCommand().append(new MovementReporter.HiddenMovementReporter(comm).getReportCommand());
+      report = createMovementReporter(comm).getReportCommand().append(new MovementReporter.HiddenMovementReporter(comm).getReportCommand());
       report.execute();
+    }
+
+    //BR// Group just the drop itself: the report has to see the individual moves, and
+    //BR// nothing that follows (key after move, properties) may be reordered into it
+    comm = groupMoves(comm);
+    if (report != null) {
+      //BR// Part of the move's own command, so one Undo takes back both
       comm = comm.append(report);
     }
 
@@ -195,14 +228,9 @@ public class FTPMover extends VASSAL.build.module.map.PieceMover {
     //of certain global key commands)
     //BR// A trigger processing this can then use this information to make sure a
     //particular trigger sequence is processed exactly once for the stack.
-    MutableProperty.Impl existingValue = (MutableProperty.Impl) GameModule.getGameModule().getMutableProperty("ClearedOncePerStackMove");
-    if (existingValue != null) {
-      comm = comm.append(existingValue.setPropertyValue("0"));
-    }
-    MutableProperty.Impl existingValue2 = (MutableProperty.Impl) GameModule.getGameModule().getMutableProperty("SizeOfStackMove");
-    if (existingValue2 != null) {
-      comm = comm.append(existingValue2.setPropertyValue(Integer.toString(allDraggedPieces.size())));
-    }
+    final FTPStackMoveProperties stackMove = FTPStackMoveProperties.getInstance();
+    comm = comm.append(stackMove.clearFlag());
+    comm = comm.append(stackMove.setStackSize(allDraggedPieces.size()));
 
     // Apply key after move to each moved piece
     if (map.getMoveKey() != null) {
@@ -212,4 +240,174 @@ public class FTPMover extends VASSAL.build.module.map.PieceMover {
     tracker.repaint();
     return comm;
   }
-}
\ No newline at end of file
+
+  /**
+   * Collect the pieces on the map that could be picked as the drop target
+   * at p, topmost first: those whose bounds contain p or that sit where p
+   * snaps to. The map is scanned once per drop, instead of once for every
+   * dragged piece that lacks a merge candidate.
+   */
+  protected List<GamePiece> findDropCandidates(Map map, Point p) {
+    final List<GamePiece> candidates = new ArrayList<>();
+    final Point snap = map.snapTo(p);
+    final GamePiece[] pieces = map.getAllPieces();
+    for (int i = pieces.length - 1; i >= 0; --i) {
+      final GamePiece piece = pieces[i];
+      final Point pos = piece.getPosition();
+      if (pos.equals(snap)) {
+        candidates.add(piece);
+      }
+      else {
+        final Rectangle r = piece.boundingBox();
+        if (r.contains(p.x - pos.x, p.y - pos.y)) {
+          candidates.add(piece);
+        }
+      }
+    }
+    return candidates;
+  }
+
+  /**
+   * Equivalent of {@link Map#findAnyPiece} restricted to the candidates
+   * from {@link #findDropCandidates}
+   */
+  protected GamePiece findDropTarget(Map map, List<GamePiece> candidates, Point p) {
+    for (GamePiece candidate : candidates) {
+      // Skip anything that has since been merged into a stack or left the map
+      if (candidate.getMap() != map || candidate.getParent() != null) {
+        continue;
+      }
+      final GamePiece target = dropTargetSelector.select(map, candidate, p);
+      if (target != null) {
+        return target;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Rewrite the moves of a drop so that each run of MovePiece commands
+   * sending pieces to the same place becomes a single {@link FTPGroupMove}.
+   *
+   * ChangePieces met inside a run are held back. If the next command is a
+   * move that joins the run, they are the "moved" markers made for that
+   * piece (or the pieces in that stack) just before it was moved, and go
+   * ahead of the group; this is only allowed if none of them is for a piece
+   * already moved in the run. Otherwise the run ends and they keep their
+   * place after it. Any other command ends the run. The result has the same
+   * effect as the original but is far shorter to send and log.
+   *
+   * If FTPCommandEncoder is not in the module, an FTPGroupMove could not be
+   * sent or logged, so comm is returned as it is.
+   */
+  protected Command groupMoves(Command comm) {
+    if (!canEncodeGroupMoves()) {
+      return comm;
+    }
+
+    final List<Command> flat = new ArrayList<>();
+    flatten(comm, flat);
+
+    final Command result = new NullCommand();
+    final List<MovePiece> run = new ArrayList<>();
+    final Set<String> runIds = new HashSet<>();
+    final List<ChangePiece> pending = new ArrayList<>();
+    FTPGroupMove group = null;
+    for (Command c : flat) {
+      if (c instanceof MovePiece && ((MovePiece) c).getOldPosition() != null) {
+        final MovePiece move = (MovePiece) c;
+        if (group == null || !group.accepts(move) || isAnyIn(pending, runIds)) {
+          appendRun(result, run, group);
+          runIds.clear();
+          group = new FTPGroupMove(move.getNewMapId(), move.getNewPosition(), move.getPlayerId());
+        }
+        appendAll(result, pending);
+        run.add(move);
+        runIds.add(move.getId());
+      }
+      else if (c instanceof ChangePiece && c.getSubCommands().length == 0 && group != null) {
+        pending.add((ChangePiece) c);
+      }
+      else {
+        appendRun(result, run, group);
+        appendAll(result, pending);
+        runIds.clear();
+        group = null;
+        result.append(c);
+      }
+    }
+    appendRun(result, run, group);
+    appendAll(result, pending);
+    return result;
+  }
+
+  private static boolean isAnyIn(List<ChangePiece> changes, Set<String> ids) {
+    for (ChangePiece change : changes) {
+      if (ids.contains(change.getId())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void appendAll(Command result, List<ChangePiece> changes) {
+    for (ChangePiece change : changes) {
+      result.append(change);
+    }
+    changes.clear();
+  }
+
+  /**
+   * @return true if the module has an encoder for {@link FTPGroupMove}, i.e. an FTPCommandEncoder
+   */
+  protected static boolean canEncodeGroupMoves() {
+    final GameModule module = GameModule.getGameModule();
+    if (module != encoderCheckModule) {
+      encoderCheckModule = module;
+      groupMovesEncodable = module != null &&
+        module.encode(new FTPGroupMove(null, new Point(), null)) != null;
+    }
+    return groupMovesEncodable;
+  }
+
+  private static void appendRun(Command result, List<MovePiece> run, FTPGroupMove group) {
+    if (run.size() == 1) {
+      result.append(run.get(0));
+    }
+    else if (run.size() > 1) {
+      for (MovePiece move : run) {
+        group.add(move);
+      }
+      result.append(group);
+    }
+    run.clear();
+  }
+
+  /**
+   * List the commands of a tree in execution order. Plain containers are
+   * dropped and a MovePiece is copied without its subcommands; any other
+   * command with subcommands is kept whole.
+   */
+  private static void flatten(Command c, List<Command> flat) {
+    final Command[] subs = c.getSubCommands();
+    if (subs.length == 0) {
+      if (!c.isNull()) {
+        flat.add(c);
+      }
+      return;
+    }
+
+    if (c instanceof MovePiece) {
+      final MovePiece m = (MovePiece) c;
+      flat.add(new MovePiece(m.getId(), m.getNewMapId(), m.getNewPosition(), m.getNewUnderneathId(),
+        m.getOldMapId(), m.getOldPosition(), m.getOldUnderneathId(), m.getPlayerId()));
+    }
+    else if (c.getClass() != NullCommand.class) {
+      flat.add(c);
+      return;
+    }
+    for (Command sub : subs) {
+      flatten(sub, flat);
+    }
+  }
+}
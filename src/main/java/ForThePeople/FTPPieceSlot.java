@@ -25,6 +25,8 @@ import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.Point;
 import java.awt.dnd.DnDConstants;
 import java.awt.dnd.DragGestureEvent;
@@ -34,6 +36,7 @@ import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.awt.image.BufferedImage;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.KeyStroke;
@@ -78,6 +81,14 @@ public class FTPPieceSlot extends VASSAL.build.widget.PieceSlot implements Mouse
   public static final String GP_ID = "gpid";
   protected GamePiece c;
   protected GamePiece expanded;
+  protected String expandedState;     //BR// State of the piece when expanded was made
+  protected boolean stateDirty;       //BR// A key or menu command may have changed the piece since then
+  protected BufferedImage thumbnail;  //BR// expanded, drawn at our scale
+  protected Dimension thumbnailSize;
+  protected double thumbnailScale;
+  protected GamePiece template;       //BR// The expanded piece templateType and templateState came from
+  protected String templateType;
+  protected String templateState;
   protected String name;
   protected String pieceDefinition;
   protected static Font FONT = new Font("Dialog", 0, 12);
@@ -153,17 +164,83 @@ public class FTPPieceSlot extends VASSAL.build.widget.PieceSlot implements Mouse
    * @return expanded piece
    */
   protected GamePiece getExpandedPiece() {
-    if (expanded == null) {
-      final GamePiece p = getPiece();
-      if (p != null) {  // Possible when PlaceMarker is building
+    return getExpandedPiece(getPiece());
+  }
+
+  /**
+   * @param p the piece, as just returned by {@link #getPiece()}
+   */
+  protected GamePiece getExpandedPiece(GamePiece p) {
+    if (p == null) {  // Possible when PlaceMarker is building
+      return expanded;
+    }
+
+    //BR// Only look at the state after a key or menu command, and only expand again if it changed
+    if (expanded == null || stateDirty) {
+      final String state = p.getState();
+      if (expanded == null || !state.equals(expandedState)) {
         expanded = PieceCloner.getInstance().clonePiece(p);
+        expandedState = state;
+        thumbnail = null;
       }
+      stateDirty = false;
     }
     return expanded;
   }
 
   protected void clearExpandedPiece() {
     expanded = null;
+    expandedState = null;
+    thumbnail = null;
+    stateDirty = false;
+  }
+
+  /**
+   * Note that a key or menu command has been sent to the piece, so its state
+   * is checked again the next time it is painted.
+   */
+  protected void pieceChanged() {
+    stateDirty = true;
+    panel.repaint();
+  }
+
+  /**
+   * Return the expanded piece drawn at palette scale on a white background,
+   * the size of the panel. scale is the device scale of the Graphics it is
+   * to be drawn on, so that it stays sharp on high-resolution screens.
+   * Call {@link #getExpandedPiece()} first to make sure it is up to date.
+   *
+   * The image is frozen apart from changes to the piece's state. Anything
+   * a trait works out only when it draws, such as a Layer or Label that
+   * follows a global property, or an edit to one of its prototypes, does
+   * not show until the state changes, the slot itself is edited
+   * ({@link #setPiece}) or {@link #clearExpandedPiece()} is called.
+   */
+  protected BufferedImage getThumbnail(Dimension size, double scale) {
+    if (expanded == null) {
+      return null;
+    }
+    if (thumbnail == null || !size.equals(thumbnailSize) || scale != thumbnailScale) {
+      thumbnail = renderThumbnail(expanded, size, scale, panel);
+      thumbnailSize = new Dimension(size);
+      thumbnailScale = scale;
+    }
+    return thumbnail;
+  }
+
+  protected static BufferedImage renderThumbnail(GamePiece p, Dimension size, double scale, Component obs) {
+    final BufferedImage image = new BufferedImage(
+      Math.max(1, (int) Math.ceil(size.width * scale)),
+      Math.max(1, (int) Math.ceil(size.height * scale)),
+      BufferedImage.TYPE_INT_RGB
+    );
+    final Graphics2D g = image.createGraphics();
+    g.scale(scale, scale);
+    g.setColor(Color.WHITE);
+    g.fillRect(0, 0, size.width, size.height);
+    p.draw(g, size.width / 2, size.height / 2, obs, 0.66666); //BR//   .6666
+    g.dispose();
+    return image;
   }
 
   /**
@@ -195,15 +272,39 @@ public class FTPPieceSlot extends VASSAL.build.widget.PieceSlot implements Mouse
     return c;
   }
 
+  /**
+   * Called on the event thread by {@link FTPSlotPrewarmer}: decode and
+   * expand the piece and render its thumbnail now, so that the first paint
+   * of the slot just draws the image.
+   *
+   * @return false if there was nothing to do
+   */
+  protected boolean prewarm() {
+    if (c != null || pieceDefinition == null) {
+      return false;
+    }
+
+    final Dimension panelSize = panel.getSize();
+    final Dimension size = panelSize.width > 0 && panelSize.height > 0 ? panelSize : new Dimension(width, height);
+    final GraphicsConfiguration gc = panel.getGraphicsConfiguration();
+    final double scale = gc == null ? 1.0 : gc.getDefaultTransform().getScaleX();
+
+    getExpandedPiece();
+    getThumbnail(size, scale);
+    return true;
+  }
+
   public void paint(Graphics g) {
+    FTPSlotPrewarmer.notePaint();
     final Dimension size = panel.getSize();
+    final GamePiece expandedPiece = getExpandedPiece();
 
-    final Color c = g.getColor();
-    g.setColor(Color.WHITE);
-    g.fillRect(0, 0, size.width, size.height);
-    g.setColor(c);
+    if (expandedPiece == null) {
+      final Color c = g.getColor();
+      g.setColor(Color.WHITE);
+      g.fillRect(0, 0, size.width, size.height);
+      g.setColor(c);
 
-    if (getExpandedPiece() == null) {
       final FontMetrics fm = g.getFontMetrics();
       g.drawRect(0, 0, size.width - 1, size.height - 1);
       g.setFont(FONT);
@@ -213,12 +314,15 @@ public class FTPPieceSlot extends VASSAL.build.widget.PieceSlot implements Mouse
       );
     }
     else {
-      getExpandedPiece().draw(g, size.width / 2, size.height / 2, panel, 0.66666); //BR//   .6666
+      //BR// Scrolling a palette just copies the images; the piece is only drawn again when its state
+      //BR// changes, so appearance that follows global properties or prototypes is frozen (see getThumbnail)
+      final double scale = g instanceof Graphics2D ? ((Graphics2D) g).getTransform().getScaleX() : 1.0;
+      g.drawImage(getThumbnail(size, scale), 0, 0, size.width, size.height, panel);
 
       // NB: The piece, not the expanded piece, receives events, so we check
       // the piece, not the expanded piece, for its selection status.
       if (Boolean.TRUE.equals(getPiece().getProperty(Properties.SELECTED))) {
-        BasicPiece.getHighlighter().draw(getExpandedPiece(), g,
+        BasicPiece.getHighlighter().draw(expandedPiece, g,
           size.width / 2, size.height / 2, panel, 0.666666);  //BR// 0.666666
       }
     }
@@ -246,30 +350,54 @@ public class FTPPieceSlot extends VASSAL.build.widget.PieceSlot implements Mouse
       KeyBuffer.getBuffer().add(getPiece());
     }
 
-    clearExpandedPiece();
     panel.requestFocus();
     panel.repaint();
   }
 
   // Puts counter in DragBuffer. Call when mouse gesture recognized
   protected void startDrag() {
+    final GamePiece piece = getPiece();
+    if (piece == null) {
+      return;
+    }
 
     // Recenter piece; panel may have been resized at some point resulting
     // in pieces with inaccurate positional information.
     final Dimension size = panel.getSize();
-    getPiece().setPosition(new Point(size.width / 2, size.height / 2));
+    final Point center = new Point(size.width / 2, size.height / 2);
+    piece.setPosition(center);
 
     // Erase selection border to avoid leaving selected after mouse dragged out
-    getPiece().setProperty(Properties.SELECTED, null);
+    piece.setProperty(Properties.SELECTED, null);
     panel.repaint();
 
-    if (getPiece() != null) {
-      KeyBuffer.getBuffer().clear();
-      DragBuffer.getBuffer().clear();
-      GamePiece newPiece = PieceCloner.getInstance().clonePiece(getPiece());
-      newPiece.setProperty(Properties.PIECE_ID, getGpId());
-      DragBuffer.getBuffer().add(newPiece);
+    KeyBuffer.getBuffer().clear();
+    DragBuffer.getBuffer().clear();
+    final GamePiece newPiece = createDragPiece(piece);
+    newPiece.setPosition(center);
+    newPiece.setProperty(Properties.PIECE_ID, getGpId());
+    DragBuffer.getBuffer().add(newPiece);
+  }
+
+  /**
+   * Make a new piece to be dragged out of the palette. Rather than cloning
+   * the slot piece, which expands all of its prototypes every time, build it
+   * from the type and state of the already expanded piece. These are only
+   * worked out again when the slot piece changes.
+   */
+  protected GamePiece createDragPiece(GamePiece piece) {
+    final GamePiece e = getExpandedPiece(piece);
+    if (e == null) {
+      return PieceCloner.getInstance().clonePiece(piece);
+    }
+    if (template != e) {
+      templateType = e.getType();
+      templateState = e.getState();
+      template = e;
     }
+    final GamePiece newPiece = GameModule.getGameModule().createPiece(templateType);
+    newPiece.setState(templateState);
+    return newPiece;
   }
 
   public void mouseReleased(MouseEvent e) {
@@ -277,12 +405,11 @@ public class FTPPieceSlot extends VASSAL.build.widget.PieceSlot implements Mouse
       JPopupMenu popup = MenuDisplayer.createPopup(getPiece());
       popup.addPopupMenuListener(new PopupMenuListener() {
         public void popupMenuCanceled(PopupMenuEvent evt) {
-          panel.repaint();
+          pieceChanged();
         }
 
         public void popupMenuWillBecomeInvisible(PopupMenuEvent evt) {
-          clearExpandedPiece();
-          panel.repaint();
+          pieceChanged();
         }
 
         public void popupMenuWillBecomeVisible(PopupMenuEvent evt) {
@@ -290,8 +417,6 @@ public class FTPPieceSlot extends VASSAL.build.widget.PieceSlot implements Mouse
       });
       popup.show(panel, e.getX(), e.getY());
     }
-
-    clearExpandedPiece();
   }
 
   public void mouseClicked(MouseEvent e) {
@@ -302,29 +427,25 @@ public class FTPPieceSlot extends VASSAL.build.widget.PieceSlot implements Mouse
 
   public void mouseExited(MouseEvent e) {
     KeyBuffer.getBuffer().remove(getPiece());
-    clearExpandedPiece();
     panel.repaint();
   }
 
   public void keyPressed(KeyEvent e) {
     KeyBuffer.getBuffer().keyCommand(KeyStroke.getKeyStrokeForEvent(e));
     e.consume();
-    clearExpandedPiece();
-    panel.repaint();
+    pieceChanged();
   }
 
   public void keyTyped(KeyEvent e) {
     KeyBuffer.getBuffer().keyCommand(KeyStroke.getKeyStrokeForEvent(e));
     e.consume();
-    clearExpandedPiece();
-    panel.repaint();
+    pieceChanged();
   }
 
   public void keyReleased(KeyEvent e) {
     KeyBuffer.getBuffer().keyCommand(KeyStroke.getKeyStrokeForEvent(e));
     e.consume();
-    clearExpandedPiece();
-    panel.repaint();
+    pieceChanged();
   }
 
   public static String getConfigureTypeName() {
@@ -365,6 +486,7 @@ public class FTPPieceSlot extends VASSAL.build.widget.PieceSlot implements Mouse
   }
 
   public void addTo(Buildable parent) {
+    FTPSlotPrewarmer.register(this);
     panel.setDropTarget(AbstractDragHandler.makeDropTarget(panel, DnDConstants.ACTION_MOVE, null));
 
     DragGestureListener dragGestureListener = new DragGestureListener() {
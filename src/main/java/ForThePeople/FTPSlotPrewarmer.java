@@ -0,0 +1,129 @@
+//BR// Optionally decodes and renders palette slots a few at a time once the module has loaded
+package ForThePeople;
+
+import VASSAL.build.GameModule;
+import VASSAL.configure.BooleanConfigurer;
+import VASSAL.preferences.Prefs;
+
+import javax.swing.Timer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Once the module has finished loading, works through every
+ * {@link FTPPieceSlot} that has not been shown yet, decoding its piece and
+ * rendering its thumbnail. Slots on palette tabs already showing go first.
+ * Opening a big palette tab later then just paints the finished images.
+ *
+ * All of the work is done on the event thread, because VASSAL pieces and
+ * traits are not safe to use from any other. It is split into short slices
+ * run from a Swing Timer, so the interface stays responsive while it goes on.
+ */
+public class FTPSlotPrewarmer {
+  public static final String PREWARM = "FTPPrewarmPalettes"; //$NON-NLS-1$
+
+  // Wait for the slots to stop arriving before starting
+  protected static final int START_DELAY = 1000;
+  // Each slice of work runs for about this long, then leaves the event thread alone for a while
+  protected static final int SLICE_TIME = 10;
+  protected static final int SLICE_DELAY = 20;
+
+  private static final List<FTPPieceSlot> slots = new ArrayList<>();
+  private static final ArrayDeque<FTPPieceSlot> queue = new ArrayDeque<>();
+  private static boolean prefRegistered;
+  private static Timer startTimer;
+  private static Timer sliceTimer;
+
+  private static long loadTime;
+  private static long firstPaintTime;
+  private static long warmTime;
+
+  /**
+   * Called by each slot as it is added to the module
+   */
+  public static void register(FTPPieceSlot slot) {
+    if (!prefRegistered) {
+      prefRegistered = true;
+      Prefs.getGlobalPrefs().addOption(new BooleanConfigurer(PREWARM,
+        "Prepare palette pieces ahead of time after loading", Boolean.FALSE)); //$NON-NLS-1$
+    }
+
+    if (slots.isEmpty() && queue.isEmpty()) {
+      loadTime = System.currentTimeMillis();
+      firstPaintTime = 0;
+      warmTime = 0;
+    }
+    slots.add(slot);
+
+    if (startTimer == null) {
+      startTimer = new Timer(START_DELAY, e -> start());
+      startTimer.setRepeats(false);
+    }
+    startTimer.restart();
+  }
+
+  /**
+   * Called by each slot when it paints, to time the first palette paint
+   */
+  public static void notePaint() {
+    if (firstPaintTime == 0 && loadTime != 0) {
+      firstPaintTime = System.currentTimeMillis();
+    }
+  }
+
+  /**
+   * @return milliseconds from the first slot being loaded to the first slot being painted, or -1 if none has been painted
+   */
+  public static long getTimeToFirstPaint() {
+    return firstPaintTime == 0 ? -1 : firstPaintTime - loadTime;
+  }
+
+  /**
+   * @return milliseconds from the first slot being loaded to the last slot being prepared, or -1 if not finished
+   */
+  public static long getTimeToWarm() {
+    return warmTime == 0 ? -1 : warmTime - loadTime;
+  }
+
+  private static boolean isEnabled() {
+    return Boolean.TRUE.equals(Prefs.getGlobalPrefs().getValue(PREWARM));
+  }
+
+  private static void start() {
+    if (!isEnabled() || GameModule.getGameModule() == null) {
+      slots.clear();
+      return;
+    }
+
+    // Slots that are on screen already go to the front of the queue
+    for (FTPPieceSlot slot : slots) {
+      if (slot.getComponent().isShowing()) {
+        queue.add(slot);
+      }
+    }
+    for (FTPPieceSlot slot : slots) {
+      if (!slot.getComponent().isShowing()) {
+        queue.add(slot);
+      }
+    }
+    slots.clear();
+
+    if (sliceTimer == null) {
+      sliceTimer = new Timer(SLICE_DELAY, e -> runSlice());
+    }
+    sliceTimer.start();
+  }
+
+  private static void runSlice() {
+    final long end = System.currentTimeMillis() + SLICE_TIME;
+    while (!queue.isEmpty()) {
+      queue.poll().prewarm();
+      if (System.currentTimeMillis() >= end) {
+        return;
+      }
+    }
+    sliceTimer.stop();
+    warmTime = System.currentTimeMillis();
+  }
+}
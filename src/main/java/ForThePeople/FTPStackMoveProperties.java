@@ -0,0 +1,128 @@
+//BR// Keeps the ClearedOncePerStackMove and SizeOfStackMove global properties for everything that starts a stack move
+package ForThePeople;
+
+import VASSAL.build.GameModule;
+import VASSAL.build.module.properties.MutableProperty;
+import VASSAL.command.Command;
+import VASSAL.command.NullCommand;
+import VASSAL.counters.GamePiece;
+import VASSAL.counters.KeyBuffer;
+
+import java.util.Iterator;
+
+/**
+ * Before a key command, menu command or drop is applied to a group of pieces,
+ * ClearedOncePerStackMove is reset to "0" and SizeOfStackMove is set to the
+ * number of pieces involved. A trigger can then use these to make sure a
+ * sequence is processed exactly once for the whole stack.
+ *
+ * The properties are looked up once per module rather than by name on every
+ * action, and a command is only generated when a value actually changes.
+ */
+public class FTPStackMoveProperties {
+  public static final String CLEARED_ONCE_PER_STACK_MOVE = "ClearedOncePerStackMove";
+  public static final String SIZE_OF_STACK_MOVE = "SizeOfStackMove";
+
+  private static final FTPStackMoveProperties instance = new FTPStackMoveProperties();
+
+  private GameModule module;
+  private MutableProperty.Impl cleared;
+  private MutableProperty.Impl size;
+  private long suppressedUpdates;
+
+  public static FTPStackMoveProperties getInstance() {
+    return instance;
+  }
+
+  private void lookup() {
+    final GameModule g = GameModule.getGameModule();
+    if (g != module) {
+      module = g;
+      cleared = g == null ? null : (MutableProperty.Impl) g.getMutableProperty(CLEARED_ONCE_PER_STACK_MOVE);
+      size = g == null ? null : (MutableProperty.Impl) g.getMutableProperty(SIZE_OF_STACK_MOVE);
+    }
+  }
+
+  /**
+   * @return true if the module defines ClearedOncePerStackMove
+   */
+  public boolean hasClearedFlag() {
+    lookup();
+    return cleared != null;
+  }
+
+  /**
+   * @return true if the module defines SizeOfStackMove
+   */
+  public boolean hasStackSize() {
+    lookup();
+    return size != null;
+  }
+
+  /**
+   * Reset ClearedOncePerStackMove to "0"
+   * @return the Command to send, a NullCommand if there was nothing to change
+   */
+  public Command clearFlag() {
+    lookup();
+    return setValue(cleared, "0");
+  }
+
+  /**
+   * Set SizeOfStackMove
+   * @return the Command to send, a NullCommand if there was nothing to change
+   */
+  public Command setStackSize(int pieces) {
+    lookup();
+    return setValue(size, Integer.toString(pieces));
+  }
+
+  private Command setValue(MutableProperty.Impl property, String value) {
+    if (property == null) {
+      return new NullCommand();
+    }
+    if (value.equals(property.getPropertyValue())) {
+      suppressedUpdates++;
+      return new NullCommand();
+    }
+    return property.setPropertyValue(value);
+  }
+
+  /**
+   * @return how many updates have been skipped because the property already had the value
+   */
+  public long getSuppressedUpdates() {
+    return suppressedUpdates;
+  }
+
+  /**
+   * Reset the properties before a key or menu command goes to the selected
+   * pieces. Nothing is done if no pieces are selected.
+   *
+   * @return the Command to send, a NullCommand if there was nothing to change
+   */
+  public Command resetForSelection() {
+    if (KeyBuffer.getBuffer().isEmpty()) {
+      return new NullCommand();
+    }
+    Command comm = clearFlag();
+    if (hasStackSize()) {
+      comm = comm.append(setStackSize(getSelectedCount()));
+    }
+    return comm;
+  }
+
+  /**
+   * @return the number of pieces currently selected
+   */
+  public static int getSelectedCount() {
+    //BR// KeyBuffer only offers an iterator, so count once per action
+    int count = 0;
+    final Iterator<GamePiece> i = KeyBuffer.getBuffer().getPiecesIterator();
+    while (i.hasNext()) {
+      count++;
+      i.next();
+    }
+    return count;
+  }
+}
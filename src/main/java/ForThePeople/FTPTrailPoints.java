@@ -0,0 +1,244 @@
+//BR// Packed storage for the waypoints of an FTPFootprint movement trail
+package ForThePeople;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+/**
+ * A growable list of trail waypoints held as two primitive int arrays, so that
+ * a long trail costs two array slots per point instead of one boxed
+ * {@link Point} each. Iterate with {@link #size()}, {@link #getX(int)} and
+ * {@link #getY(int)} to avoid allocating anything.
+ */
+public class FTPTrailPoints {
+  private static final int INITIAL_CAPACITY = 8;
+
+  // Digits of the compact encoding. Each carries 5 bits of a value plus a
+  // continuation bit, and none of them is special to SequenceEncoder.
+  private static final String DIGITS =
+    "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+  private static final int[] DIGIT_VALUES = new int[128];
+  static {
+    Arrays.fill(DIGIT_VALUES, -1);
+    for (int i = 0; i < DIGITS.length(); i++) {
+      DIGIT_VALUES[DIGITS.charAt(i)] = i;
+    }
+  }
+
+  private int[] xs;
+  private int[] ys;
+  private int size;
+
+  // Points taken out by simplifyLast() between the last two waypoints. They
+  // are only known for a list of spanSize points; after anything else has
+  // changed the list, the next simplifyLast() starts a fresh span.
+  private int[] droppedXs = new int[INITIAL_CAPACITY];
+  private int[] droppedYs = new int[INITIAL_CAPACITY];
+  private int droppedCount;
+  private int spanSize;
+
+  public FTPTrailPoints() {
+    xs = new int[INITIAL_CAPACITY];
+    ys = new int[INITIAL_CAPACITY];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int getX(int i) {
+    return xs[i];
+  }
+
+  public int getY(int i) {
+    return ys[i];
+  }
+
+  /**
+   * @return a new Point holding waypoint i
+   */
+  public Point get(int i) {
+    return new Point(xs[i], ys[i]);
+  }
+
+  /**
+   * @return true if the last waypoint is at (x, y)
+   */
+  public boolean isLast(int x, int y) {
+    return size > 0 && xs[size - 1] == x && ys[size - 1] == y;
+  }
+
+  public void add(int x, int y) {
+    if (size == xs.length) {
+      final int capacity = xs.length * 2;
+      xs = Arrays.copyOf(xs, capacity);
+      ys = Arrays.copyOf(ys, capacity);
+    }
+    xs[size] = x;
+    ys[size] = y;
+    size++;
+  }
+
+  /**
+   * Remove waypoint i, closing up the gap
+   */
+  public void remove(int i) {
+    System.arraycopy(xs, i + 1, xs, i, size - i - 1);
+    System.arraycopy(ys, i + 1, ys, i, size - i - 1);
+    size--;
+    spanSize = -1;
+  }
+
+  /**
+   * Remove the oldest count waypoints. This shifts every remaining point
+   * down, so it costs O(size) each time.
+   */
+  public void removeFirst(int count) {
+    System.arraycopy(xs, count, xs, 0, size - count);
+    System.arraycopy(ys, count, ys, 0, size - count);
+    size -= count;
+    spanSize -= count;
+  }
+
+  /**
+   * Called after each new waypoint. Drop the next-to-last point if it, and
+   * every point already dropped since the last kept point, lies within
+   * tolerance of the straight track from that kept point to the new one.
+   * A track drawn through the remaining waypoints therefore never strays
+   * more than tolerance from any point that was recorded, however many are
+   * dropped along a gently curving route.
+   *
+   * @return true if a point was removed
+   */
+  public boolean simplifyLast(double tolerance) {
+    if (size < 3 || spanSize != size - 1) {
+      // Too short, or the dropped points are not known for this list
+      startSpan();
+      return false;
+    }
+    final int a = size - 3;
+    final int b = size - 2;
+    final int c = size - 1;
+    if (!isNear(xs[b], ys[b], a, c, tolerance)) {
+      startSpan();
+      return false;
+    }
+    for (int i = 0; i < droppedCount; i++) {
+      if (!isNear(droppedXs[i], droppedYs[i], a, c, tolerance)) {
+        startSpan();
+        return false;
+      }
+    }
+
+    if (droppedCount == droppedXs.length) {
+      droppedXs = Arrays.copyOf(droppedXs, droppedCount * 2);
+      droppedYs = Arrays.copyOf(droppedYs, droppedCount * 2);
+    }
+    droppedXs[droppedCount] = xs[b];
+    droppedYs[droppedCount] = ys[b];
+    droppedCount++;
+    remove(b);
+    spanSize = size;
+    return true;
+  }
+
+  private void startSpan() {
+    droppedCount = 0;
+    spanSize = size;
+  }
+
+  private boolean isNear(int px, int py, int a, int c, double tolerance) {
+    return distanceToSegment(px, py, xs[a], ys[a], xs[c], ys[c]) <= tolerance;
+  }
+
+  private static double distanceToSegment(int px, int py, int ax, int ay,
+                                          int bx, int by) {
+    final double dx = bx - ax;
+    final double dy = by - ay;
+    final double lengthSq = dx * dx + dy * dy;
+    double t = lengthSq == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSq;
+    t = Math.max(0, Math.min(1, t));
+    final double ex = ax + t * dx - px;
+    final double ey = ay + t * dy - py;
+    return Math.sqrt(ex * ex + ey * ey);
+  }
+
+  /**
+   * Remove all waypoints, keeping the arrays for reuse
+   */
+  public void clear() {
+    size = 0;
+    startSpan();
+  }
+
+  /**
+   * Encode the waypoints compactly: the first point is written as-is and
+   * every following point as its offset from the one before, each value
+   * as a zig-zag variable-length run of {@link #DIGITS}. A typical trail
+   * step costs 2-4 characters instead of the 8 or so of "x,y".
+   */
+  public String encode() {
+    final StringBuilder buffer = new StringBuilder(size * 4);
+    int lastX = 0;
+    int lastY = 0;
+    for (int i = 0; i < size; i++) {
+      appendValue(buffer, xs[i] - lastX);
+      appendValue(buffer, ys[i] - lastY);
+      lastX = xs[i];
+      lastY = ys[i];
+    }
+    return buffer.toString();
+  }
+
+  /**
+   * Replace the waypoints with those from a String made by {@link #encode()}.
+   * Decoding stops at the first character that is not a valid digit.
+   */
+  public void decode(String encoded) {
+    clear();
+    int value = 0;
+    int shift = 0;
+    int x = 0;
+    int y = 0;
+    int dx = 0;
+    boolean haveX = false;
+    for (int i = 0; i < encoded.length(); i++) {
+      final char c = encoded.charAt(i);
+      final int digit = c < DIGIT_VALUES.length ? DIGIT_VALUES[c] : -1;
+      if (digit < 0) {
+        break;
+      }
+      value |= (digit & 0x1F) << shift;
+      if ((digit & 0x20) != 0) {
+        shift += 5;
+        continue;
+      }
+
+      final int delta = (value >>> 1) ^ -(value & 1);
+      value = 0;
+      shift = 0;
+      if (haveX) {
+        x += dx;
+        y += delta;
+        add(x, y);
+      }
+      else {
+        dx = delta;
+      }
+      haveX = !haveX;
+    }
+  }
+
+  private static void appendValue(StringBuilder buffer, int value) {
+    int v = (value << 1) ^ (value >> 31);
+    while ((v & ~0x1F) != 0) {
+      buffer.append(DIGITS.charAt(0x20 | (v & 0x1F)));
+      v >>>= 5;
+    }
+    buffer.append(DIGITS.charAt(v));
+  }
+}
@@ -22,6 +22,7 @@ import VASSAL.build.GameModule;
 import VASSAL.build.module.GlobalOptions;
 import VASSAL.command.CommandEncoder;
 import VASSAL.configure.ColorConfigurer;
+import VASSAL.configure.Configurer;
 import VASSAL.i18n.Resources;
 import VASSAL.preferences.Prefs;
 import VASSAL.tools.ErrorDialog;
@@ -32,6 +33,7 @@ import javax.swing.text.BadLocationException;
 import java.awt.Color;
 import java.awt.Font;
 import java.io.IOException;
+import java.util.Objects;
 
 /**
  * A tight mini-mod of the VASSAL 3.4 Chatter, to assign chat colors based on which side players are playing (rather than
@@ -39,6 +41,9 @@ import java.io.IOException;
  * info with the chat commands when sending from machine to machine, but as we presently don't this will have to do!
  */
 public class POGChatter extends VASSAL.build.module.Chatter implements CommandEncoder, Buildable {
+  //BR// Our own chat prefix, and the side it was made for
+  private String chatPrefix;
+  private Object chatPrefixSide;
 
   protected static final String AP_CHAT_COLOR = "PoGAPChatColor";
   protected static final String CP_CHAT_COLOR = "PoGCPChatColor";
@@ -56,10 +61,13 @@ public class POGChatter extends VASSAL.build.module.Chatter implements CommandEn
   protected String getChatStyle(String s) {
     String style;
 
-    if (s.startsWith(formatChat("").trim())) { //$NON-NLS-1$
-      if (GameModule.getGameModule().getProperty(VASSAL.build.module.GlobalOptions.PLAYER_SIDE).equals("Central Powers")) {
+    //BR// Look the side up once per message
+    final Object side = GameModule.getGameModule().getProperty(VASSAL.build.module.GlobalOptions.PLAYER_SIDE);
+
+    if (s.startsWith(getChatPrefix(side))) { //$NON-NLS-1$
+      if ("Central Powers".equals(side)) {
         style = "cpchat";
-      } else if (GameModule.getGameModule().getProperty(VASSAL.build.module.GlobalOptions.PLAYER_SIDE).equals("Solitaire")) {
+      } else if ("Solitaire".equals(side)) {
         style = "ref";
       } else {
         style = "apchat";
@@ -74,9 +82,9 @@ public class POGChatter extends VASSAL.build.module.Chatter implements CommandEn
         style = "ref";
       }
     } else {
-      if (GameModule.getGameModule().getProperty(VASSAL.build.module.GlobalOptions.PLAYER_SIDE).equals("Central Powers")) {
+      if ("Central Powers".equals(side)) {
         style = "apchat";
-      } else if (GameModule.getGameModule().getProperty(VASSAL.build.module.GlobalOptions.PLAYER_SIDE).equals("Solitaire") || GameModule.getGameModule().getProperty(VASSAL.build.module.GlobalOptions.PLAYER_SIDE).equals("<observer>")) {
+      } else if ("Solitaire".equals(side) || "<observer>".equals(side)) {
         style = "ref";
       } else {
         style = "cpchat";
@@ -86,6 +94,18 @@ public class POGChatter extends VASSAL.build.module.Chatter implements CommandEn
     return style;
   }
 
+  /**
+   * @return formatChat("").trim(), the start of our own chat messages. It is
+   * only worked out again when our side or name changes.
+   */
+  protected String getChatPrefix(Object side) {
+    if (chatPrefix == null || !Objects.equals(side, chatPrefixSide)) {
+      chatPrefix = formatChat("").trim();
+      chatPrefixSide = side;
+    }
+    return chatPrefix;
+  }
+
   /**
    * Adds our two player color styles to the HTML stylesheet
    */
@@ -258,6 +278,12 @@ public class POGChatter extends VASSAL.build.module.Chatter implements CommandEn
   public void addTo(Buildable b) {
     super.addTo(b); // Let VASSAL's chatter do its normal thing
 
+    //BR// Our chat prefix includes our name
+    final Configurer realName = GameModule.getGameModule().getPrefs().getOption(GameModule.REAL_NAME);
+    if (realName != null) {
+      realName.addPropertyChangeListener(e -> chatPrefix = null);
+    }
+
     GameModule mod = (GameModule) b;
     final Prefs globalPrefs = Prefs.getGlobalPrefs();
 